@@ -0,0 +1,341 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class BinaryFrameCodec {
+    public static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+
+    public enum Opcode {
+        REGISTER(1),
+        LOGIN(2),
+        FRIEND_REQUEST(3),
+        ACCEPT_FRIEND(4),
+        SEND_DM(5),
+        GET_FRIENDS(6),
+        CREATE_SERVER(7),
+        JOIN_SERVER(8),
+        LEAVE_SERVER(9),
+        SERVER_MSG(10),
+        LIST_SERVERS(11),
+        SERVER_MEMBERS(12),
+        BLOCK_USER(13),
+        UNBLOCK_USER(14),
+        GET_BLOCKED(15),
+        GET_HISTORY(16),
+        STATS(17),
+        SEARCH_DM(18),
+        PROTOCOL(19),
+        COMPRESS(20),
+        GET_HISTORY_PAGE(21),
+        SEARCH_SERVER(22),
+        SERVER_HISTORY(23),
+
+        ERROR(64),
+        REGISTER_OK(65),
+        REGISTER_FAILED(66),
+        LOGIN_OK(67),
+        LOGIN_FAILED(68),
+        FRIEND_ADDED(69),
+        DM(70),
+        DM_DELIVERED(71),
+        STATUS(72),
+        FRIENDS(73),
+        SERVER_CREATED(74),
+        NEW_SERVER(75),
+        SERVER_JOINED(76),
+        SERVER_LEFT(77),
+        SERVERS(78),
+        MEMBERS(79),
+        BLOCKED(80),
+        UNBLOCKED(81),
+        BLOCKED_LIST(82),
+        HISTORY(83),
+        SEARCH_RESULTS(84),
+        PROTOCOL_OK(85),
+        PROTOCOL_FAILED(86),
+        COMPRESS_OK(87),
+        COMPRESS_FAILED(88),
+        DEFLATED(89),
+        HISTORY_PAGE(90),
+        SERVER_HISTORY_PAGE(91);
+
+        private static final Map<Integer, Opcode> BY_CODE = new HashMap<>();
+
+        static {
+            for (Opcode opcode : values()) {
+                BY_CODE.put(opcode.code, opcode);
+            }
+        }
+
+        private final int code;
+
+        Opcode(int code) {
+            this.code = code;
+        }
+
+        public int code() {
+            return code;
+        }
+
+        public static Opcode fromCode(int code) throws IOException {
+            Opcode opcode = BY_CODE.get(code);
+            if (opcode == null) {
+                throw new IOException("Unknown opcode: " + code);
+            }
+            return opcode;
+        }
+    }
+
+    public static final class Frame {
+        private final Opcode opcode;
+        private final long requestId;
+        private final String[] fields;
+        private final byte[] payload;
+
+        public Frame(Opcode opcode, long requestId, String... fields) {
+            this.opcode = opcode;
+            this.requestId = requestId;
+            this.fields = fields;
+            this.payload = null;
+        }
+
+        private Frame(Opcode opcode, byte[] payload) {
+            this.opcode = opcode;
+            this.requestId = 0;
+            this.fields = new String[0];
+            this.payload = payload;
+        }
+
+        public Opcode opcode() {
+            return opcode;
+        }
+
+        public long requestId() {
+            return requestId;
+        }
+
+        public String[] fields() {
+            return fields;
+        }
+
+        public byte[] payload() {
+            return payload;
+        }
+
+        public String[] toParts() {
+            String[] parts = new String[fields.length + 1];
+            parts[0] = opcode.name();
+            System.arraycopy(fields, 0, parts, 1, fields.length);
+            return parts;
+        }
+    }
+
+    private BinaryFrameCodec() {
+    }
+
+    public static byte[] encode(Opcode opcode, String... fields) {
+        return encode(opcode, 0, fields);
+    }
+
+    public static byte[] encode(Opcode opcode, long requestId, String... fields) {
+        byte[][] encodedFields = new byte[fields.length][];
+        int bodyLength = varintSize(opcode.code()) + varintSize(requestId) + varintSize(fields.length);
+        for (int i = 0; i < fields.length; i++) {
+            encodedFields[i] = fields[i].getBytes(StandardCharsets.UTF_8);
+            bodyLength += varintSize(encodedFields[i].length) + encodedFields[i].length;
+        }
+        if (bodyLength > MAX_FRAME_BYTES) {
+            throw new IllegalArgumentException("Frame too large: " + bodyLength + " bytes");
+        }
+
+        byte[] frame = new byte[varintSize(bodyLength) + bodyLength];
+        int pos = writeVarint(frame, 0, bodyLength);
+        pos = writeVarint(frame, pos, opcode.code());
+        pos = writeVarint(frame, pos, requestId);
+        pos = writeVarint(frame, pos, fields.length);
+        for (byte[] field : encodedFields) {
+            pos = writeVarint(frame, pos, field.length);
+            System.arraycopy(field, 0, frame, pos, field.length);
+            pos += field.length;
+        }
+        return frame;
+    }
+
+    public static byte[] encodeRaw(Opcode opcode, byte[] payload, int length) {
+        int bodyLength = varintSize(opcode.code()) + length;
+        if (bodyLength > MAX_FRAME_BYTES) {
+            throw new IllegalArgumentException("Frame too large: " + bodyLength + " bytes");
+        }
+        byte[] frame = new byte[varintSize(bodyLength) + bodyLength];
+        int pos = writeVarint(frame, 0, bodyLength);
+        pos = writeVarint(frame, pos, opcode.code());
+        System.arraycopy(payload, 0, frame, pos, length);
+        return frame;
+    }
+
+    public static void write(OutputStream out, Opcode opcode, String... fields) throws IOException {
+        out.write(encode(opcode, fields));
+    }
+
+    public static void write(OutputStream out, Opcode opcode, long requestId, String... fields) throws IOException {
+        out.write(encode(opcode, requestId, fields));
+    }
+
+    public static Frame readFrame(InputStream in) throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            return null;
+        }
+        int bodyLength = readVarint(in, first);
+        checkFrameLength(bodyLength);
+        byte[] body = in.readNBytes(bodyLength);
+        if (body.length < bodyLength) {
+            throw new EOFException("Truncated frame");
+        }
+        return decodeBody(body, 0, bodyLength);
+    }
+
+    public static int completeFrameLength(byte[] buffer, int offset, int limit) throws IOException {
+        int bodyLength = 0;
+        int shift = 0;
+        int pos = offset;
+        while (true) {
+            if (pos >= limit) {
+                return -1;
+            }
+            byte b = buffer[pos++];
+            bodyLength |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            shift += 7;
+            if (shift > 28) {
+                throw new IOException("Malformed frame length");
+            }
+        }
+        checkFrameLength(bodyLength);
+        int total = (pos - offset) + bodyLength;
+        return limit - offset >= total ? total : -1;
+    }
+
+    public static Frame decode(byte[] buffer, int offset, int length) throws IOException {
+        int[] cursor = {offset};
+        int bodyLength = readVarint(buffer, cursor, offset + length);
+        if (cursor[0] + bodyLength != offset + length) {
+            throw new IOException("Frame length mismatch");
+        }
+        return decodeBody(buffer, cursor[0], bodyLength);
+    }
+
+    private static Frame decodeBody(byte[] buffer, int offset, int length) throws IOException {
+        int end = offset + length;
+        int[] cursor = {offset};
+        Opcode opcode = Opcode.fromCode(readVarint(buffer, cursor, end));
+        if (opcode == Opcode.DEFLATED) {
+            return new Frame(opcode, Arrays.copyOfRange(buffer, cursor[0], end));
+        }
+        long requestId = readVarLong(buffer, cursor, end);
+        if (requestId < 0) {
+            throw new IOException("Malformed request id");
+        }
+        int count = readVarint(buffer, cursor, end);
+        if (count > length) {
+            throw new IOException("Malformed field count");
+        }
+        String[] fields = new String[count];
+        for (int i = 0; i < count; i++) {
+            int fieldLength = readVarint(buffer, cursor, end);
+            if (fieldLength > end - cursor[0]) {
+                throw new IOException("Field overruns frame");
+            }
+            fields[i] = new String(buffer, cursor[0], fieldLength, StandardCharsets.UTF_8);
+            cursor[0] += fieldLength;
+        }
+        return new Frame(opcode, requestId, fields);
+    }
+
+    private static void checkFrameLength(int bodyLength) throws IOException {
+        if (bodyLength < 0 || bodyLength > MAX_FRAME_BYTES) {
+            throw new IOException("Frame too large: " + bodyLength + " bytes");
+        }
+    }
+
+    private static int readVarint(InputStream in, int first) throws IOException {
+        int value = first & 0x7F;
+        int shift = 7;
+        int b = first;
+        while ((b & 0x80) != 0) {
+            if (shift > 28) {
+                throw new IOException("Malformed varint");
+            }
+            b = in.read();
+            if (b == -1) {
+                throw new EOFException("Truncated varint");
+            }
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    private static int readVarint(byte[] buffer, int[] cursor, int end) throws IOException {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            if (cursor[0] >= end) {
+                throw new IOException("Truncated varint");
+            }
+            byte b = buffer[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 28) {
+                throw new IOException("Malformed varint");
+            }
+        }
+    }
+
+    private static long readVarLong(byte[] buffer, int[] cursor, int end) throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            if (cursor[0] >= end) {
+                throw new IOException("Truncated varint");
+            }
+            byte b = buffer[cursor[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IOException("Malformed varint");
+            }
+        }
+    }
+
+    static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(byte[] target, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            target[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[pos++] = (byte) value;
+        return pos;
+    }
+}
@@ -1,15 +1,37 @@
 import java.io.*;
 import java.net.*;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 public class ChatClient {
     private static final int SERVER_PORT = 8888;
+    private static final String UNIX_PREFIX = "unix:";
+    private static final int HISTORY_PAGE_SIZE = 50;
+    private static final int SEARCH_PAGE_SIZE = 20;
 
     private final String serverHost;
 
+    private final boolean binaryRequested;
+    private final boolean compressionRequested;
+    private final AtomicLong nextRequestId = new AtomicLong();
+    private final Map<Long, CompletableFuture<String>> pendingRequests = new ConcurrentHashMap<>();
+    private final Map<String, String[]> olderHistoryCursors = new ConcurrentHashMap<>();
+    private final Map<String, String[]> pendingSearches = new ConcurrentHashMap<>();
+
     private Socket socket;
+    private SocketChannel unixChannel;
     private BufferedReader in;
     private PrintWriter out;
+    private boolean binary;
+    private InputStream binaryIn;
+    private OutputStream binaryOut;
+    private Inflater inflater;
     private String userId;
     private String username;
     private boolean running;
@@ -35,15 +57,40 @@ public class ChatClient {
         this.running = true;
         this.currentServer = null;
         this.serverHost = serverHost;
+        this.binaryRequested = "binary".equalsIgnoreCase(System.getProperty("chat.protocol", "text"));
+        this.compressionRequested = "deflate".equalsIgnoreCase(System.getProperty("chat.compression", "none"));
     }
 
     public void connect() {
         try {
-            socket = new Socket(serverHost, SERVER_PORT);
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            out = new PrintWriter(socket.getOutputStream(), true);
+            InputStream rawIn;
+            OutputStream rawOut;
+            String endpoint;
+            if (serverHost.startsWith(UNIX_PREFIX)) {
+                String path = serverHost.substring(UNIX_PREFIX.length());
+                unixChannel = SocketChannel.open(UnixDomainSocketAddress.of(path));
+                rawIn = ChannelStreams.input(unixChannel);
+                rawOut = ChannelStreams.output(unixChannel);
+                endpoint = serverHost;
+            } else {
+                socket = new Socket(serverHost, SERVER_PORT);
+                rawIn = socket.getInputStream();
+                rawOut = socket.getOutputStream();
+                endpoint = serverHost + ":" + SERVER_PORT;
+            }
+
+            if (binaryRequested) {
+                binary = negotiateBinary(rawIn, rawOut);
+            }
+            if (!binary) {
+                in = new BufferedReader(new InputStreamReader(rawIn));
+                out = new PrintWriter(rawOut, true);
+            }
+            if (compressionRequested) {
+                sendCommand("COMPRESS", "DEFLATE");
+            }
 
-            System.out.println(GREEN + "Connected to chat server " + serverHost + ":" + SERVER_PORT + RESET);
+            System.out.println(GREEN + "Connected to chat server " + endpoint + RESET);
             System.out.println(YELLOW + "You must login or register before using chat commands." + RESET);
             System.out.println("Use:");
             System.out.println("  login <password>");
@@ -58,6 +105,25 @@ public class ChatClient {
         }
     }
 
+    private boolean negotiateBinary(InputStream rawIn, OutputStream rawOut) throws IOException {
+        rawOut.write("PROTOCOL:BINARY\n".getBytes(StandardCharsets.UTF_8));
+        rawOut.flush();
+
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        int b;
+        while ((b = rawIn.read()) != -1 && b != '\n') {
+            reply.write(b);
+        }
+
+        if (!"PROTOCOL_OK:BINARY".equals(reply.toString(StandardCharsets.UTF_8).trim())) {
+            System.out.println(YELLOW + "Server refused binary protocol, using text." + RESET);
+            return false;
+        }
+        binaryIn = new BufferedInputStream(rawIn);
+        binaryOut = new BufferedOutputStream(rawOut);
+        return true;
+    }
+
     private void printPrompt() {
         String serverLabel = (currentServer != null) ? currentServer : "no-server";
         if (!authenticated) {
@@ -81,8 +147,11 @@ public class ChatClient {
         System.out.println("block <userId>        - Block a user");
         System.out.println("unblock <userId>      - Unblock a user");
         System.out.println("blocked               - Show blocked users");
-        System.out.println("history <userId>      - Show DM history");
-        System.out.println("search <userId> <keyword>   - Search DM history");
+        System.out.println("history <userId>      - Show recent DM history");
+        System.out.println("older <userId|serverId>     - Load older DM or server history");
+        System.out.println("search <userId> <query>     - Search DM history (\"phrases\", prefix*)");
+        System.out.println("more <userId|serverId>      - Show more search results");
+        System.out.println("stats                 - Show server statistics");
         System.out.println("\n========= SERVER COMMANDS =======");
         System.out.println("create <serverId> <name> - Create a server");
         System.out.println("servers                 - List all servers");
@@ -90,6 +159,8 @@ public class ChatClient {
         System.out.println("leave <serverId>        - Leave a server");
         System.out.println("members <serverId>      - List server members");
         System.out.println("say <message>           - Send message to current server");
+        System.out.println("roomhistory <serverId>  - Show recent server messages");
+        System.out.println("find <serverId> <query> - Search server messages");
         System.out.println("quit / exit             - Exit");
         System.out.println("help                    - Show this help");
         System.out.println("=================================\n");
@@ -105,21 +176,230 @@ public class ChatClient {
 
     private void listenForMessages() {
         try {
+            if (binary) {
+                BinaryFrameCodec.Frame frame;
+                while (running && (frame = BinaryFrameCodec.readFrame(binaryIn)) != null) {
+                    handleFrame(frame);
+                }
+                return;
+            }
             String message;
             while (running && (message = in.readLine()) != null) {
-                handleServerMessage(message);
+                handleLine(message);
             }
         } catch (IOException e) {
             if (running) {
                 System.err.println(RED + "Connection lost: " + e.getMessage() + RESET);
             }
+        } finally {
+            failPendingRequests();
+        }
+    }
+
+    private void handleLine(String message) throws IOException {
+        if (message.startsWith("DEFLATED:")) {
+            byte[] line = inflate(Base64.getDecoder().decode(message.substring("DEFLATED:".length())));
+            int length = line.length > 0 && line[line.length - 1] == '\n' ? line.length - 1 : line.length;
+            handleLine(new String(line, 0, length, StandardCharsets.UTF_8));
+            return;
+        }
+        if (message.startsWith("@")) {
+            int separator = message.indexOf(':');
+            if (separator > 1) {
+                long requestId = Long.parseLong(message.substring(1, separator));
+                message = message.substring(separator + 1);
+                if (completeRequest(requestId, message)) {
+                    return;
+                }
+            }
+        }
+        handleServerMessage(message);
+    }
+
+    private byte[] inflate(byte[] compressed) throws IOException {
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        inflater.setInput(compressed);
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream(compressed.length * 4);
+        byte[] chunk = new byte[8192];
+        try {
+            int read;
+            while ((read = inflater.inflate(chunk)) > 0) {
+                inflated.write(chunk, 0, read);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed message", e);
+        }
+        return inflated.toByteArray();
+    }
+
+    private boolean completeRequest(long requestId, String response) {
+        CompletableFuture<String> pending = pendingRequests.remove(requestId);
+        if (pending == null) {
+            return false;
+        }
+        pending.complete(response);
+        return true;
+    }
+
+    private void failPendingRequests() {
+        IOException closed = new IOException("Connection closed");
+        for (Long requestId : pendingRequests.keySet()) {
+            CompletableFuture<String> pending = pendingRequests.remove(requestId);
+            if (pending != null) {
+                pending.completeExceptionally(closed);
+            }
+        }
+    }
+
+    private static String frameToLine(BinaryFrameCodec.Frame frame) {
+        String type = frame.opcode().name();
+        String[] fields = frame.fields();
+        int keys = entryKeyCount(frame.opcode());
+        if (keys > 0 && fields.length >= keys) {
+            StringBuilder payload = new StringBuilder();
+            for (int i = keys; i + 2 < fields.length; i += 3) {
+                if (payload.length() > 0) payload.append("|");
+                payload.append(fields[i]).append("~").append(fields[i + 1]).append("~").append(fields[i + 2]);
+            }
+            return type + ":" + String.join(":", Arrays.copyOf(fields, keys)) + ":" + payload;
+        }
+        return fields.length == 0 ? type : type + ":" + String.join(":", fields);
+    }
+
+    private static int entryKeyCount(BinaryFrameCodec.Opcode opcode) {
+        switch (opcode) {
+            case HISTORY:
+                return 1;
+            case SEARCH_RESULTS:
+                return 2;
+            case HISTORY_PAGE:
+            case SERVER_HISTORY_PAGE:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    private void handleFrame(BinaryFrameCodec.Frame frame) throws IOException {
+        if (frame.opcode() == BinaryFrameCodec.Opcode.DEFLATED) {
+            byte[] inflated = inflate(frame.payload());
+            handleFrame(BinaryFrameCodec.decode(inflated, 0, inflated.length));
+            return;
+        }
+        if (frame.requestId() != 0 && completeRequest(frame.requestId(), frameToLine(frame))) {
+            return;
+        }
+        String[] fields = frame.fields();
+        switch (frame.opcode()) {
+            case HISTORY:
+                printEntries("DM History", fields, "No previous messages.");
+                break;
+            case SEARCH_RESULTS:
+                if (fields.length >= 2) {
+                    showSearchResults(fields[0], fields[1], entriesFromFields(fields, 2));
+                }
+                printPrompt();
+                break;
+            case HISTORY_PAGE:
+            case SERVER_HISTORY_PAGE:
+                if (fields.length >= 4) {
+                    showHistoryPage(frame.opcode() == BinaryFrameCodec.Opcode.SERVER_HISTORY_PAGE, fields[0],
+                            Boolean.parseBoolean(fields[1]), fields[2], entriesFromFields(fields, 4));
+                }
+                printPrompt();
+                break;
+            default:
+                handleServerMessage(frameToLine(frame));
+        }
+    }
+
+    private static List<String[]> entriesFromFields(String[] fields, int from) {
+        List<String[]> entries = new ArrayList<>();
+        for (int i = from; i + 2 < fields.length; i += 3) {
+            entries.add(new String[]{fields[i], fields[i + 1], fields[i + 2]});
+        }
+        return entries;
+    }
+
+    private static List<String[]> entriesFromText(String payload) {
+        List<String[]> entries = new ArrayList<>();
+        if (payload.isEmpty()) {
+            return entries;
+        }
+        for (String entry : payload.split("\\|")) {
+            String[] e = entry.split("~", 3);
+            if (e.length == 3) {
+                entries.add(e);
+            }
+        }
+        return entries;
+    }
+
+    private void showSearchResults(String scopeId, String nextCursor, List<String[]> entries) {
+        System.out.println("\n=== Search Results with " + scopeId + " ===");
+        if (entries.isEmpty()) {
+            System.out.println("No matching messages.");
+        }
+        for (String[] e : entries) {
+            System.out.println("[" + e[0] + "] " + e[1] + ": " + e[2]);
+        }
+        if (nextCursor.isEmpty()) {
+            pendingSearches.remove(scopeId);
+            return;
+        }
+        String[] search = pendingSearches.get(scopeId);
+        if (search != null) {
+            pendingSearches.put(scopeId, new String[]{search[0], search[1], nextCursor});
+        }
+        System.out.println("(Type 'more " + scopeId + "' for more results)");
+    }
+
+    private void showHistoryPage(boolean room, String scopeId, boolean hasMore, String olderCursor,
+                                 List<String[]> entries) {
+        if (hasMore && !olderCursor.isEmpty()) {
+            olderHistoryCursors.put(scopeId, new String[]{room ? "SERVER_HISTORY" : "GET_HISTORY_PAGE", olderCursor});
+        } else {
+            olderHistoryCursors.remove(scopeId);
+        }
+        System.out.println("\n=== " + (room ? "Server History of " : "DM History with ") + scopeId + " ===");
+        if (entries.isEmpty()) {
+            System.out.println("No previous messages.");
+        }
+        for (String[] e : entries) {
+            System.out.println("[" + e[0] + "] " + e[1] + ": " + e[2]);
         }
+        if (hasMore) {
+            System.out.println("(Type 'older " + scopeId + "' to load earlier messages)");
+        }
+    }
+
+    private void printEntries(String title, String[] fields, String emptyText) {
+        String friendId = fields.length >= 1 ? fields[0] : "";
+        System.out.println("\n=== " + title + " with " + friendId + " ===");
+        if (fields.length < 4) {
+            System.out.println(emptyText);
+        }
+        for (int i = 1; i + 2 < fields.length; i += 3) {
+            System.out.println("[" + fields[i] + "] " + fields[i + 1] + ": " + fields[i + 2]);
+        }
+        printPrompt();
     }
 
     private void handleServerMessage(String message) {
         String[] parts = message.split(":", 2);
         String type = parts[0];
 
+        if ("COMPRESS_OK".equals(type)) {
+            return;
+        }
+
+        if ("COMPRESS_FAILED".equals(type)) {
+            System.out.println(YELLOW + "\nServer declined compression, continuing uncompressed." + RESET);
+            return;
+        }
+
         if ("REGISTER_OK".equals(type)) {
 
             String[] p = message.split(":");
@@ -402,20 +682,28 @@ public class ChatClient {
                 break;
 
             case "SEARCH_RESULTS": {
-                String[] p = parts[1].split(":", 2);
-                String friendId = p[0];
-
-                System.out.println("\n=== Search Results with " + friendId + " ===");
+                String[] p = parts.length >= 2 ? parts[1].split(":", 3) : new String[0];
+                if (p.length >= 1) {
+                    showSearchResults(p[0], p.length >= 2 ? p[1] : "", entriesFromText(p.length == 3 ? p[2] : ""));
+                }
+                break;
+            }
 
-                if (p.length < 2 || p[1].isEmpty()) {
-                    System.out.println("No matching messages.");
-                    break;
+            case "STATS":
+                System.out.println("\n=== Server Statistics ===");
+                if (parts.length >= 2 && !parts[1].isEmpty()) {
+                    for (String stat : parts[1].split(",")) {
+                        System.out.println("  " + stat.replace("=", ": "));
+                    }
                 }
+                break;
 
-                String[] entries = p[1].split("\\|");
-                for (String entry : entries) {
-                    String[] e = entry.split("~", 3);
-                    System.out.println("[" + e[0] + "] " + e[1] + ": " + e[2]);
+            case "HISTORY_PAGE":
+            case "SERVER_HISTORY_PAGE": {
+                String[] hParts = parts.length >= 2 ? parts[1].split(":", 5) : new String[0];
+                if (hParts.length == 5) {
+                    showHistoryPage(type.equals("SERVER_HISTORY_PAGE"), hParts[0],
+                            Boolean.parseBoolean(hParts[1]), hParts[2], entriesFromText(hParts[4]));
                 }
                 break;
             }
@@ -451,17 +739,17 @@ public class ChatClient {
     }
 
     public void sendFriendRequest(String friendId) {
-        sendCommand("FRIEND_REQUEST:" + friendId);
+        sendCommand("FRIEND_REQUEST", friendId);
         System.out.println("Friend request sent to user: " + friendId);
     }
 
     public void acceptFriendRequest(String friendId) {
-        sendCommand("ACCEPT_FRIEND:" + friendId);
+        sendCommand("ACCEPT_FRIEND", friendId);
         System.out.println("Accepting friend request from: " + friendId);
     }
 
     public void sendDirectMessage(String receiverId, String content) {
-        sendCommand("SEND_DM:" + receiverId + ":" + content);
+        sendCommand("SEND_DM", receiverId, content);
     }
 
     public void getOnlineFriends() {
@@ -469,12 +757,12 @@ public class ChatClient {
     }
 
     public void blockUser(String targetUserId) {
-        sendCommand("BLOCK_USER:" + targetUserId);
+        sendCommand("BLOCK_USER", targetUserId);
         System.out.println("Blocking user: " + targetUserId);
     }
 
     public void unblockUser(String targetUserId) {
-        sendCommand("UNBLOCK_USER:" + targetUserId);
+        sendCommand("UNBLOCK_USER", targetUserId);
         System.out.println("Unblocking user: " + targetUserId);
     }
 
@@ -483,21 +771,59 @@ public class ChatClient {
     }
 
     public void getDirectMessageHistory(String friendId) {
-        sendCommand("GET_HISTORY:" + friendId);
+        sendCommand("GET_HISTORY", friendId);
+    }
+
+    public void getRecentHistory(String friendId) {
+        olderHistoryCursors.remove(friendId);
+        sendCommand("GET_HISTORY_PAGE", friendId, String.valueOf(HISTORY_PAGE_SIZE));
+    }
+
+    public void getRecentServerHistory(String serverId) {
+        olderHistoryCursors.remove(serverId);
+        sendCommand("SERVER_HISTORY", serverId, String.valueOf(HISTORY_PAGE_SIZE));
+    }
+
+    public void getOlderHistory(String id) {
+        String[] cursor = olderHistoryCursors.get(id);
+        if (cursor == null) {
+            System.out.println("No older messages for " + id + ". Use 'history' or 'roomhistory' first.");
+            return;
+        }
+        sendCommand(cursor[0], id, String.valueOf(HISTORY_PAGE_SIZE), "before", cursor[1]);
+    }
+
+    public void searchDirectMessages(String friendId, String query) {
+        pendingSearches.put(friendId, new String[]{"SEARCH_DM", query, ""});
+        sendCommand("SEARCH_DM", friendId, String.valueOf(SEARCH_PAGE_SIZE), "", query);
+    }
+
+    public void searchServerMessages(String serverId, String query) {
+        pendingSearches.put(serverId, new String[]{"SEARCH_SERVER", query, ""});
+        sendCommand("SEARCH_SERVER", serverId, String.valueOf(SEARCH_PAGE_SIZE), "", query);
+    }
+
+    public void moreSearchResults(String id) {
+        String[] search = pendingSearches.get(id);
+        if (search == null || search[2].isEmpty()) {
+            System.out.println("No more results for " + id + ".");
+            return;
+        }
+        sendCommand(search[0], id, String.valueOf(SEARCH_PAGE_SIZE), search[2], search[1]);
     }
 
     public void createLocalServer(String serverId, String serverName) {
-        sendCommand("CREATE_SERVER:" + serverId + ":" + serverName);
+        sendCommand("CREATE_SERVER", serverId, serverName);
         System.out.println("Creating server: " + serverName);
     }
 
     public void joinLocalServer(String serverId) {
-        sendCommand("JOIN_SERVER:" + serverId);
+        sendCommand("JOIN_SERVER", serverId);
         System.out.println("Joining server: " + serverId);
     }
 
     public void leaveLocalServer(String serverId) {
-        sendCommand("LEAVE_SERVER:" + serverId);
+        sendCommand("LEAVE_SERVER", serverId);
         System.out.println("Leaving server: " + serverId);
     }
 
@@ -507,7 +833,7 @@ public class ChatClient {
             joinLocalServer("general");
             currentServer = "general";
         }
-        sendCommand("SERVER_MSG:" + serverId + ":" + content);
+        sendCommand("SERVER_MSG", serverId, content);
     }
 
     public void listLocalServers() {
@@ -515,13 +841,65 @@ public class ChatClient {
     }
 
     public void getServerMembers(String serverId) {
-        sendCommand("SERVER_MEMBERS:" + serverId);
+        sendCommand("SERVER_MEMBERS", serverId);
+    }
+
+    public void getServerStats() {
+        sendCommand("STATS");
     }
 
-    private void sendCommand(String command) {
-        if (out != null) {
-            out.println(command);
+    public CompletableFuture<String> request(String action, String... fields) {
+        long requestId = nextRequestId.incrementAndGet();
+        CompletableFuture<String> response = new CompletableFuture<>();
+        pendingRequests.put(requestId, response);
+        if (!sendCommand(requestId, action, fields)) {
+            pendingRequests.remove(requestId);
+            response.completeExceptionally(new IOException("Not connected"));
         }
+        return response;
+    }
+
+    public CompletableFuture<List<String>> fetchOnlineFriends() {
+        return request("GET_FRIENDS").thenApply(ChatClient::listPayload);
+    }
+
+    public CompletableFuture<List<String>> fetchServers() {
+        return request("LIST_SERVERS").thenApply(ChatClient::listPayload);
+    }
+
+    public CompletableFuture<List<String>> fetchBlockedUsers() {
+        return request("GET_BLOCKED").thenApply(ChatClient::listPayload);
+    }
+
+    private static List<String> listPayload(String response) {
+        int separator = response.indexOf(':');
+        String payload = separator < 0 ? "" : response.substring(separator + 1);
+        return payload.isEmpty() ? List.of() : Arrays.asList(payload.split(","));
+    }
+
+    private void sendCommand(String action, String... fields) {
+        sendCommand(0, action, fields);
+    }
+
+    private boolean sendCommand(long requestId, String action, String... fields) {
+        if (binary) {
+            try {
+                synchronized (binaryOut) {
+                    BinaryFrameCodec.write(binaryOut, BinaryFrameCodec.Opcode.valueOf(action), requestId, fields);
+                    binaryOut.flush();
+                }
+                return true;
+            } catch (IOException e) {
+                System.err.println(RED + "Send error: " + e.getMessage() + RESET);
+                return false;
+            }
+        }
+        if (out == null) {
+            return false;
+        }
+        String command = fields.length == 0 ? action : action + ":" + String.join(":", fields);
+        out.println(requestId != 0 ? "@" + requestId + ":" + command : command);
+        return true;
     }
 
     public void startCLI() {
@@ -545,7 +923,7 @@ public class ChatClient {
                     case "register":
                         if (parts.length >= 2) {
                             String password = parts[1];
-                            sendCommand("REGISTER:" + userId + ":" + username + ":" + password);
+                            sendCommand("REGISTER", userId, username, password);
                             System.out.println("Attempting registration for " + username + " (ID: " + userId + ")...");
                         } else {
                             System.out.println("Usage: register <password>");
@@ -555,7 +933,7 @@ public class ChatClient {
                     case "login":
                         if (parts.length >= 2) {
                             String password = parts[1];
-                            sendCommand("LOGIN:" + userId + ":" + password);
+                            sendCommand("LOGIN", userId, password);
                             System.out.println("Attempting login for " + username + " (ID: " + userId + ")...");
                         } else {
                             System.out.println("Usage: login <password>");
@@ -678,20 +1056,56 @@ public class ChatClient {
 
                 case "history":
                     if (parts.length >= 2) {
-                        getDirectMessageHistory(parts[1]);
+                        getRecentHistory(parts[1]);
                     } else {
                         System.out.println("Usage: history <userId>");
                     }
                     break;
 
+                case "roomhistory":
+                    if (parts.length >= 2) {
+                        getRecentServerHistory(parts[1]);
+                    } else {
+                        System.out.println("Usage: roomhistory <serverId>");
+                    }
+                    break;
+
+                case "older":
+                    if (parts.length >= 2) {
+                        getOlderHistory(parts[1]);
+                    } else {
+                        System.out.println("Usage: older <userId|serverId>");
+                    }
+                    break;
+
                 case "search":
                     if (parts.length >= 3) {
-                        sendCommand("SEARCH_DM:" + parts[1] + ":" + parts[2]);
+                        searchDirectMessages(parts[1], parts[2]);
                     } else {
-                        System.out.println("Usage: search <userId> <keyword>");
+                        System.out.println("Usage: search <userId> <query>");
                     }
                     break;
 
+                case "find":
+                    if (parts.length >= 3) {
+                        searchServerMessages(parts[1], parts[2]);
+                    } else {
+                        System.out.println("Usage: find <serverId> <query>");
+                    }
+                    break;
+
+                case "more":
+                    if (parts.length >= 2) {
+                        moreSearchResults(parts[1]);
+                    } else {
+                        System.out.println("Usage: more <userId|serverId>");
+                    }
+                    break;
+
+                case "stats":
+                    getServerStats();
+                    break;
+
                 case "help":
                     printHelp();
                     break;
@@ -717,6 +1131,9 @@ public class ChatClient {
             if (socket != null && !socket.isClosed()) {
                 socket.close();
             }
+            if (unixChannel != null && unixChannel.isOpen()) {
+                unixChannel.close();
+            }
             System.out.println("Disconnected from server.");
         } catch (IOException e) {
             System.err.println("Error disconnecting: " + e.getMessage());
@@ -728,6 +1145,9 @@ public class ChatClient {
             System.out.println("Usage: java ChatClient <userId> <username> [serverHost]");
             System.out.println("Example (local): java ChatClient u1 Alice");
             System.out.println("Example (remote): java ChatClient u1 Alice 192.168.1.105");
+            System.out.println("Example (binary protocol): java -Dchat.protocol=binary ChatClient u1 Alice");
+            System.out.println("Example (compressed): java -Dchat.compression=deflate ChatClient u1 Alice");
+            System.out.println("Example (unix socket): java ChatClient u1 Alice unix:/tmp/chat.sock");
             return;
         }
 
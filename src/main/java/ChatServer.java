@@ -6,6 +6,10 @@ import Message.Decorator.TimestampDecorator;
 import User.*;
 import User.State.*;
 import User.UserBuilder;
+import db.Database;
+import db.PersistenceQueue;
+import db.model.DbServer;
+import db.model.MessagePage;
 import db.dao.BlockedDAO;
 import db.dao.DMDAO;
 import db.dao.FriendDAO;
@@ -16,9 +20,13 @@ import java.io.*;
 import java.net.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
 
-public class ChatServer {
-    private static final int PORT = 8888;
+public final class ChatServer {
+    private static final long SHUTDOWN_WAIT_MILLIS = 5_000;
 
     private final UserDAO userDAO = new UserDAO();
     private final FriendDAO friendDAO = new FriendDAO();
@@ -29,36 +37,101 @@ public class ChatServer {
 
     private final Map<String, User> users;
     private final Map<String, ClientHandler> onlineClients;
-    private final Map<String, LocalServer> localServers;
-    private final ExecutorService threadPool;
-    private ServerSocket serverSocket;
+    private final Map<String, RoomActor> rooms;
+    private final LockStripes userLocks;
+    private final LockStripes conversationLocks;
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final boolean profileBroadcasts;
+    private final boolean compressionEnabled;
+    private final int compressionMinBytes;
+    private final ChatTransport transport;
+    private final ExecutorService requestExecutor;
+    private final ExecutorService roomExecutor;
+    private final ShardSet shards;
+    private final ForkJoinPool fanOutPool;
+    private final int fanOutThreshold;
+    private final int fanOutChunkSize;
+    private final PersistenceQueue persistence;
+    private final PersistenceQueue.Durability durability;
+    private final SearchIndex searchIndex;
+    private final int roomHistoryCapacity;
+    private final int dmCacheMessages;
+    private final int dmCacheConversations;
     private MessageFactory messageFactory;
 
     public ChatServer() {
+        this(ServerConfig.fromSystemProperties());
+    }
+
+    public ChatServer(ServerConfig config) {
         this.messageFactory = new MessageFactory();
         this.users = new ConcurrentHashMap<>();
         this.onlineClients = new ConcurrentHashMap<>();
-        this.localServers = new ConcurrentHashMap<>();
-        this.threadPool = Executors.newCachedThreadPool();
+        this.rooms = new ConcurrentHashMap<>();
+        this.userLocks = new LockStripes(config.getLockStripes());
+        this.conversationLocks = new LockStripes(config.getLockStripes());
+        this.slowConsumerPolicy = new SlowConsumerPolicy(
+                config.getOutboundHighWaterMark(),
+                config.getOverflowAction(),
+                metrics
+        );
+        this.profileBroadcasts = config.isProfileBroadcasts();
+        this.compressionEnabled = config.isCompressionEnabled();
+        this.compressionMinBytes = config.getCompressionMinBytes();
+        this.transport = createTransport(config);
+        this.requestExecutor = createPool("chat-request-", config.getRequestThreads());
+        this.roomExecutor = createPool("chat-room-", config.getRoomThreads());
+        this.shards = config.getShards() > 0 ? new ShardSet(config.getShards()) : null;
+        this.fanOutPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        this.fanOutThreshold = config.getFanOutThreshold();
+        this.fanOutChunkSize = config.getFanOutChunkSize();
+        this.persistence = new PersistenceQueue(
+                config.getPersistenceCapacity(),
+                config.getPersistenceBatchRows(),
+                config.getPersistenceBatchWindowMillis()
+        );
+        this.durability = config.getDurability();
+        this.roomHistoryCapacity = config.getRoomHistoryCapacity();
+        this.dmCacheMessages = config.getDmCacheMessages();
+        this.dmCacheConversations = config.getDmCacheConversations();
+        this.searchIndex = config.getSearchIndexBytes() > 0
+                ? new SearchIndex(config.getSearchIndexBytes(), metrics)
+                : null;
 
         if (!serverDAO.exists("general")) {
             serverDAO.createServer("general", "General", "SYSTEM");
         }
-        LocalServer generalServer = new LocalServer("general", "General", "SYSTEM");
-        localServers.put("general", generalServer);
+        rooms.put("general", new RoomActor(new LocalServer("general", "General", "SYSTEM", roomHistoryCapacity), roomPool("general")));
         System.out.println("Default 'General' server created");
     }
 
+    private ChatTransport createTransport(ServerConfig config) {
+        switch (config.getTransport()) {
+            case NIO:
+                return new NioTransport(this, config);
+            case THREAD_PER_CONNECTION:
+            default:
+                return new SocketTransport(this, config);
+        }
+    }
+
+    private static ExecutorService createPool(String namePrefix, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private Executor roomPool(String serverId) {
+        return shards != null ? shards.executorFor(serverId) : roomExecutor;
+    }
+
     public void start() {
         try {
-            serverSocket = new ServerSocket(PORT);
-            System.out.println("Chat Server started on port " + PORT);
-
-            while (true) {
-                Socket clientSocket = serverSocket.accept();
-                ClientHandler handler = new ClientHandler(clientSocket, this);
-                threadPool.execute(handler);
-            }
+            transport.start();
         } catch (IOException e) {
             System.err.println("Server error: " + e.getMessage());
         }
@@ -66,11 +139,31 @@ public class ChatServer {
 
     public void shutdown() {
         try {
-            threadPool.shutdown();
-            if (serverSocket != null) serverSocket.close();
+            transport.shutdown();
         } catch (IOException e) {
             System.err.println("Error shutting down server: " + e.getMessage());
         }
+        requestExecutor.shutdown();
+        awaitTermination(requestExecutor);
+        roomExecutor.shutdown();
+        fanOutPool.shutdown();
+        if (shards != null) {
+            shards.shutdown();
+        }
+        awaitTermination(roomExecutor);
+        awaitTermination(fanOutPool);
+        if (shards != null) {
+            shards.awaitTermination(SHUTDOWN_WAIT_MILLIS);
+        }
+        persistence.shutdown();
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(SHUTDOWN_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     private String hashPassword(String rawPassword) {
@@ -88,146 +181,172 @@ public class ChatServer {
         return stored.equals(hashPassword(rawPassword));
     }
 
-    public synchronized void registerUser(String userId, String username, String email) {
+    public void registerUser(String userId, String username, String email) {
         registerUser(userId, username, email, "NO_PASSWORD_SET");
     }
 
-    public synchronized void registerUser(String userId, String username, String email, String rawPassword) {
-        if (!userDAO.exists(userId)) {
-            userDAO.createUser(userId, username, email, hashPassword(rawPassword));
+    public void registerUser(String userId, String username, String email, String rawPassword) {
+        userLocks.lock(userId);
+        try {
+            if (!userDAO.exists(userId)) {
+                userDAO.createUser(userId, username, email, hashPassword(rawPassword));
+                System.out.println("User registered: " + username);
+            }
+        } finally {
+            userLocks.unlock(userId);
         }
+    }
 
-        if (!users.containsKey(userId)) {
-            User user = new UserBuilder()
-                    .setUserId(userId)
-                    .setUsername(username)
-                    .setEmail(email)
-                    .setOnline(false)
-                    .build();
-            users.put(userId, user);
-            System.out.println("User registered: " + username);
+    public void connectUser(String userId, ClientHandler handler) {
+        User loaded = loadUserIfExists(userId);
+        if (loaded == null) {
+            handler.sendReply("ERROR", " User not found");
+            return;
         }
-    }
 
-    public synchronized void connectUser(String userId, ClientHandler handler) {
-        User user = users.get(userId);
+        User user;
+        userLocks.lock(userId);
+        try {
+            User cached = users.putIfAbsent(userId, loaded);
+            user = cached != null ? cached : loaded;
+            user.setState(new OnlineState());
+            user.setOnline(true);
+            onlineClients.put(userId, handler);
+        } finally {
+            userLocks.unlock(userId);
+        }
 
-        if (user == null) {
-            db.model.DbUser dbUser = userDAO.getUserById(userId);
-            if (dbUser == null) {
-                handler.sendMessage("ERROR: User not found");
-                return;
-            }
-            user = new UserBuilder()
-                    .setUserId(dbUser.id())
-                    .setUsername(dbUser.username())
-                    .setEmail(dbUser.email())
-                    .setOnline(false)
-                    .build();
-            users.put(userId, user);
-        }
-
-        user.setState(new OnlineState());
-        user.setOnline(true);
-        onlineClients.put(userId, handler);
         userDAO.setOnline(userId, true);
+        serverDAO.addMember("general", userId);
 
         Message onlineMsg = messageFactory.userOnline(user.getUsername());
         String displayOnline = formatForDisplay(onlineMsg);
-        broadcastToServer("general", "SERVER_MSG:general:SYSTEM:SYSTEM:" + displayOnline);
-
-        LocalServer generalServer = localServers.get("general");
-        if (generalServer != null) {
-            serverDAO.addMember("general", userId);
-            generalServer.addMember(userId);
-            handler.sendMessage("SERVER_JOINED:general:" + generalServer.getServerName());
+        Message joinMessage = messageFactory.serverJoin(user.getUsername(), "general");
+        String displayJoin = formatForDisplay(joinMessage);
 
-            Message joinMessage = messageFactory.serverJoin(user.getUsername(), "general");
-            String displayJoin = formatForDisplay(joinMessage);
-            broadcastToServer(
-                    "general",
-                    "SERVER_MSG:general:SYSTEM:SYSTEM:" + displayJoin
-            );
+        RoomActor general = rooms.get("general");
+        if (general != null) {
+            general.tell(generalServer -> {
+                broadcastToServer(generalServer, "SERVER_MSG", "general", "SYSTEM", "SYSTEM", displayOnline);
+                generalServer.addMember(userId);
+                handler.sendReply("SERVER_JOINED", "general", generalServer.getServerName());
+                broadcastToServer(
+                        generalServer,
+                        "SERVER_MSG",
+                        "general",
+                        "SYSTEM",
+                        "SYSTEM",
+                        displayJoin
+                );
+            });
         }
 
-        notifyFriendsOnlineStatus(userId, true);
+        notifyFriendsOnlineStatus(userId, user.getUsername(), true);
         System.out.println("User connected: " + user.getUsername());
     }
 
-    public synchronized void disconnectUser(String userId) {
+    public void disconnectUser(String userId) {
         User user = users.get(userId);
-        if (user != null) {
+        if (user == null) {
+            return;
+        }
+
+        userLocks.lock(userId);
+        try {
             user.setState(new OfflineState());
             user.setOnline(false);
             onlineClients.remove(userId);
             userDAO.setOnline(userId, false);
+            if (users.remove(userId, user)) {
+                metrics.increment("users.evicted");
+            }
+        } finally {
+            userLocks.unlock(userId);
+        }
 
-            Message offlineMsg = messageFactory.userOffline(user.getUsername());
-            String displayOffline = formatForDisplay(offlineMsg);
-            broadcastToServer(
-                    "general",
-                    "SERVER_MSG:general:SYSTEM:SYSTEM:" + displayOffline
-            );
-
-            LocalServer generalServer = localServers.get("general");
-            if (generalServer != null && generalServer.isMember(userId)) {
-                generalServer.removeMember(userId);
-                serverDAO.removeMember("general", userId);
+        Message offlineMsg = messageFactory.userOffline(user.getUsername());
+        String displayOffline = formatForDisplay(offlineMsg);
 
-                Message leaveMessage = messageFactory.serverLeave(user.getUsername(), "general");
-                String displayLeave = formatForDisplay(leaveMessage);
+        RoomActor general = rooms.get("general");
+        if (general != null) {
+            general.tell(generalServer -> {
                 broadcastToServer(
+                        generalServer,
+                        "SERVER_MSG",
                         "general",
-                        "SERVER_MSG:general:SYSTEM:SYSTEM:" + displayLeave
+                        "SYSTEM",
+                        "SYSTEM",
+                        displayOffline
                 );
-            }
 
-            notifyFriendsOnlineStatus(userId, false);
-            System.out.println("User disconnected: " + user.getUsername());
+                if (generalServer.isMember(userId)) {
+                    generalServer.removeMember(userId);
+                    serverDAO.removeMember("general", userId);
+
+                    Message leaveMessage = messageFactory.serverLeave(user.getUsername(), "general");
+                    String displayLeave = formatForDisplay(leaveMessage);
+                    broadcastToServer(
+                            generalServer,
+                            "SERVER_MSG",
+                            "general",
+                            "SYSTEM",
+                            "SYSTEM",
+                            displayLeave
+                    );
+                }
+            });
         }
+
+        notifyFriendsOnlineStatus(userId, user.getUsername(), false);
+        System.out.println("User disconnected: " + user.getUsername());
     }
 
-    public synchronized void sendFriendRequest(String senderId, String receiverId) {
+    public void sendFriendRequest(String senderId, String receiverId) {
         User sender = loadUserIfExists(senderId);
         User receiver = loadUserIfExists(receiverId);
 
         if (sender == null || receiver == null) {
-            sendToClient(senderId, "ERROR: User not found");
+            sendToClient(senderId, "ERROR", " User not found");
             return;
         }
         if (blockedDAO.isBlocked(receiverId, senderId)) {
-            sendToClient(senderId, "ERROR: Cannot send friend request (you are blocked by this user)");
+            sendToClient(senderId, "ERROR", " Cannot send friend request (you are blocked by this user)");
             return;
         }
 
         Message friendRequest = messageFactory.friendRequest(senderId, receiverId);
 
-        sendToClient(receiverId, "FRIEND_REQUEST:" + senderId + ":" + sender.getUsername());
+        sendToClient(receiverId, "FRIEND_REQUEST", senderId, sender.getUsername());
         System.out.println("Friend request: " + senderId + " -> " + receiverId);
     }
 
-    public synchronized void acceptFriendRequest(String userId, String friendId) {
+    public void acceptFriendRequest(String userId, String friendId) {
         User user = loadUserIfExists(userId);
         User friend = loadUserIfExists(friendId);
 
         if (user == null || friend == null) {
-            sendToClient(userId, "ERROR: User not found");
+            sendToClient(userId, "ERROR", " User not found");
             return;
         }
 
-        user.addFriend(friendId);
-        friend.addFriend(userId);
+        userLocks.lockBoth(userId, friendId);
+        try {
+            user.addFriend(friendId);
+            friend.addFriend(userId);
 
-        friendDAO.addFriendship(userId, friendId);
-        friendDAO.addFriendship(friendId, userId);
+            friendDAO.addFriendship(userId, friendId);
+            friendDAO.addFriendship(friendId, userId);
+        } finally {
+            userLocks.unlockBoth(userId, friendId);
+        }
 
-        sendToClient(userId, "FRIEND_ADDED:" + friendId + ":" + friend.getUsername());
-        sendToClient(friendId, "FRIEND_ADDED:" + userId + ":" + user.getUsername());
+        sendToClient(userId, "FRIEND_ADDED", friendId, friend.getUsername());
+        sendToClient(friendId, "FRIEND_ADDED", userId, user.getUsername());
 
         System.out.println("Friends added: " + userId + " <-> " + friendId);
     }
 
-    public synchronized List<String> getOnlineFriends(String userId) {
+    public List<String> getOnlineFriends(String userId) {
         List<String> result = new ArrayList<>();
         List<String> friendIds = friendDAO.getFriends(userId);
 
@@ -240,93 +359,160 @@ public class ChatServer {
         return result;
     }
 
-    public synchronized void sendDirectMessage(String senderId, String receiverId, String content) {
+    public void sendDirectMessage(String senderId, String receiverId, String content) {
         User sender = loadUserIfExists(senderId);
         User receiver = loadUserIfExists(receiverId);
 
         if (sender == null || receiver == null) {
-            sendToClient(senderId, "ERROR: User not found");
+            sendToClient(senderId, "ERROR", " User not found");
             return;
         }
 
         if (blockedDAO.isBlocked(receiverId, senderId) || blockedDAO.isBlocked(senderId, receiverId)) {
-            sendToClient(senderId, "ERROR: Cannot send direct message (user is blocked)");
+            sendToClient(senderId, "ERROR", " Cannot send direct message (user is blocked)");
             return;
         }
 
         if (!friendDAO.areFriends(senderId, receiverId)) {
-            sendToClient(senderId, "ERROR: Not friends with this user");
+            sendToClient(senderId, "ERROR", " Not friends with this user");
             return;
         }
 
         Message message = messageFactory.directMessage(senderId, receiverId, content);
 
         String conversationId = getConversationId(senderId, receiverId);
-
-        sender.addDirectMessage(conversationId, message);
-        receiver.addDirectMessage(conversationId, message);
-
-        dmDAO.saveMessage(
-                conversationId,
-                senderId,
-                receiverId,
-                content,
-                message.getTimestamp()
-        );
-
         String display = formatForDisplay(message);
 
-        sendToClient(receiverId, "DM:" + senderId + ":" + sender.getUsername() + ":" + display);
-        sendToClient(senderId, "DM_DELIVERED:" + receiverId + ":" + receiver.getUsername() + ":" + display);
+        if (shards != null) {
+            sendShardedDirectMessage(sender, receiver, conversationId, content, message, display);
+            System.out.println("DM: " + senderId + " -> " + receiverId + ": " + content);
+            return;
+        }
+
+        conversationLocks.lock(conversationId);
+        try {
+            sender.addDirectMessage(conversationId, message);
+            receiver.addDirectMessage(conversationId, message);
+
+            CompletableFuture<Void> saved = persistence.submit(DMDAO.row(
+                    message.getId(),
+                    conversationId,
+                    senderId,
+                    receiverId,
+                    content,
+                    message.getTimestamp()
+            ));
+            indexForSearch("dm:" + conversationId, message);
+
+            sendToClient(receiverId, "DM", senderId, sender.getUsername(), display);
+            acknowledgeDirectMessage(saved, senderId, receiverId, receiver.getUsername(), display);
+        } finally {
+            conversationLocks.unlock(conversationId);
+        }
 
         System.out.println("DM: " + senderId + " -> " + receiverId + ": " + content);
     }
 
-    public synchronized List<Message> getConversationHistory(String userId, String friendId) {
-        List<Message> result = new ArrayList<>();
-
-        List<Message> dbMessages = dmDAO.getMessages(userId, friendId);
-        for (Message message : dbMessages) {
-            if (!result.contains(message)) {
-                result.add(message);
-            }
+    private void sendShardedDirectMessage(User sender, User receiver, String conversationId, String content,
+                                          Message message, String display) {
+        String senderId = sender.getUserId();
+        String receiverId = receiver.getUserId();
+        shards.executorFor(senderId).execute(ClientHandler.inCurrentRequest(() -> {
+            sender.addDirectMessage(conversationId, message);
+            CompletableFuture<Void> saved = persistence.submit(DMDAO.row(
+                    message.getId(),
+                    conversationId,
+                    senderId,
+                    receiverId,
+                    content,
+                    message.getTimestamp()
+            ));
+            indexForSearch("dm:" + conversationId, message);
+
+            metrics.increment(shards.sameShard(senderId, receiverId) ? "shards.dm.local" : "shards.dm.crossShard");
+            shards.executorFor(receiverId).execute(ClientHandler.inCurrentRequest(() -> {
+                receiver.addDirectMessage(conversationId, message);
+                sendToClient(receiverId, "DM", senderId, sender.getUsername(), display);
+                acknowledgeDirectMessage(saved, senderId, receiverId, receiver.getUsername(), display);
+            }));
+        }));
+    }
+
+    private void acknowledgeDirectMessage(CompletableFuture<Void> saved, String senderId, String receiverId,
+                                          String receiverName, String display) {
+        if (durability == PersistenceQueue.Durability.ACK_AFTER_ENQUEUE) {
+            sendToClient(senderId, "DM_DELIVERED", receiverId, receiverName, display);
+            saved.whenComplete(ClientHandler.inCurrentRequest((ignored, error) -> {
+                if (error != null) {
+                    sendToClient(senderId, "ERROR", " Message could not be saved");
+                }
+            }));
+            return;
         }
+        saved.whenComplete(ClientHandler.inCurrentRequest((ignored, error) -> {
+            if (error != null) {
+                sendToClient(senderId, "ERROR", " Message could not be saved");
+            } else {
+                sendToClient(senderId, "DM_DELIVERED", receiverId, receiverName, display);
+            }
+        }));
+    }
 
-        result.sort(Comparator.comparing(Message::getTimestamp));
-        return result;
+    public List<Message> getConversationHistory(String userId, String friendId) {
+        persistence.flush();
+        return dmDAO.getMessages(userId, friendId);
+    }
+
+    public MessagePage getConversationPage(String userId, String friendId, boolean before,
+                                           long cursorTimestamp, String cursorId, int limit) {
+        persistence.flush();
+        MessagePage page = dmDAO.getPage(userId, friendId, before, cursorTimestamp, cursorId, limit);
+        metrics.increment("history.pages");
+        metrics.add("history.pageRows", page.messages().size());
+        return page;
     }
 
-    public synchronized void blockUser(String userId, String blockedId) {
+    public void blockUser(String userId, String blockedId) {
         User user = loadUserIfExists(userId);
         User target = loadUserIfExists(blockedId);
 
         if (user == null || target == null) {
-            sendToClient(userId, "ERROR: User not found");
+            sendToClient(userId, "ERROR", " User not found");
             return;
         }
 
-        user.blockUser(blockedId);
-        blockedDAO.blockUser(userId, blockedId);
+        userLocks.lock(userId);
+        try {
+            user.blockUser(blockedId);
+            blockedDAO.blockUser(userId, blockedId);
+        } finally {
+            userLocks.unlock(userId);
+        }
 
-        sendToClient(userId, "BLOCKED:" + blockedId + ":" + target.getUsername());
+        sendToClient(userId, "BLOCKED", blockedId, target.getUsername());
     }
 
-    public synchronized void unblockUser(String userId, String blockedId) {
+    public void unblockUser(String userId, String blockedId) {
         User user = loadUserIfExists(userId);
         User target = loadUserIfExists(blockedId);
 
         if (user == null || target == null) {
-            sendToClient(userId, "ERROR: User not found");
+            sendToClient(userId, "ERROR", " User not found");
             return;
         }
 
-        user.unblockUser(blockedId);
-        blockedDAO.unblockUser(userId, blockedId);
+        userLocks.lock(userId);
+        try {
+            user.unblockUser(blockedId);
+            blockedDAO.unblockUser(userId, blockedId);
+        } finally {
+            userLocks.unlock(userId);
+        }
 
-        sendToClient(userId, "UNBLOCKED:" + blockedId + ":" + target.getUsername());
+        sendToClient(userId, "UNBLOCKED", blockedId, target.getUsername());
     }
 
-    public synchronized List<String> getBlockedUsers(String userId) {
+    public List<String> getBlockedUsers(String userId) {
         List<String> result = new ArrayList<>();
         List<String> blockedIds = blockedDAO.getBlockedUsers(userId);
 
@@ -339,132 +525,212 @@ public class ChatServer {
         return result;
     }
 
-    public synchronized void createLocalServer(String serverId, String serverName, String ownerId) {
-        if (!localServers.containsKey(serverId)) {
+    private RoomActor room(String serverId) {
+        RoomActor room = rooms.get(serverId);
+        if (room != null) {
+            return room;
+        }
+        DbServer stored = serverDAO.getServer(serverId);
+        if (stored == null) {
+            return null;
+        }
+        LocalServer server = new LocalServer(stored.id(), stored.name(), stored.ownerId(), roomHistoryCapacity);
+        for (String memberId : serverDAO.getMembers(serverId)) {
+            server.addMember(memberId);
+        }
+        RoomActor loaded = new RoomActor(server, roomPool(serverId));
+        RoomActor existing = rooms.putIfAbsent(serverId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        metrics.increment("rooms.loaded");
+        return loaded;
+    }
+
+    public void createLocalServer(String serverId, String serverName, String ownerId) {
+        if (room(serverId) != null) {
+            return;
+        }
+        RoomActor room = new RoomActor(new LocalServer(serverId, serverName, ownerId, roomHistoryCapacity), roomPool(serverId));
+        if (rooms.putIfAbsent(serverId, room) != null) {
+            return;
+        }
+
+        room.tell(server -> {
             serverDAO.createServer(serverId, serverName, ownerId);
             serverDAO.addMember(serverId, ownerId);
 
-            LocalServer server = new LocalServer(serverId, serverName, ownerId);
-            server.addMember(ownerId);
-            localServers.put(serverId, server);
-
-            sendToClient(ownerId, "SERVER_CREATED:" + serverId + ":" + serverName);
+            sendToClient(ownerId, "SERVER_CREATED", serverId, serverName);
 
+            User creator = users.get(ownerId);
+            String creatorName = creator != null ? creator.getUsername() : "Unknown";
             for (String uid : onlineClients.keySet()) {
                 if (!uid.equals(ownerId)) {
-                    User creator = users.get(ownerId);
-                    String creatorName = creator != null ? creator.getUsername() : "Unknown";
-                    sendToClient(uid, "NEW_SERVER:" + serverId + ":" + serverName + ":" + creatorName);
+                    sendToClient(uid, "NEW_SERVER", serverId, serverName, creatorName);
                 }
             }
 
             System.out.println("Local server created: " + serverName + " by " + ownerId);
-        }
+        });
     }
 
-    public synchronized void joinLocalServer(String userId, String serverId) {
-        LocalServer server = localServers.get(serverId);
+    public void joinLocalServer(String userId, String serverId) {
+        RoomActor room = room(serverId);
         User user = loadUserIfExists(userId);
 
-        if (server == null) {
-            sendToClient(userId, "ERROR: Server not found");
+        if (room == null) {
+            sendToClient(userId, "ERROR", " Server not found");
             return;
         }
 
         if (user == null) {
-            sendToClient(userId, "ERROR: User not found");
+            sendToClient(userId, "ERROR", " User not found");
             return;
         }
 
-        server.addMember(userId);
-        serverDAO.addMember(serverId, userId);
-
-        sendToClient(userId, "SERVER_JOINED:" + serverId + ":" + server.getServerName());
-
         Message joinMessage = messageFactory.serverJoin(user.getUsername(), serverId);
         String displayJoin = formatForDisplay(joinMessage);
 
-        broadcastToServer(
-                serverId,
-                "SERVER_MSG:" + serverId + ":SYSTEM:SYSTEM:" + displayJoin
-        );
+        room.tell(server -> {
+            server.addMember(userId);
+            serverDAO.addMember(serverId, userId);
 
-        System.out.println("User " + userId + " joined server: " + serverId);
+            sendToClient(userId, "SERVER_JOINED", serverId, server.getServerName());
+
+            broadcastToServer(
+                    server,
+                    "SERVER_MSG",
+                    serverId,
+                    "SYSTEM",
+                    "SYSTEM",
+                    displayJoin
+            );
+
+            System.out.println("User " + userId + " joined server: " + serverId);
+        });
     }
 
-    public synchronized void leaveLocalServer(String userId, String serverId) {
-        LocalServer server = localServers.get(serverId);
+    public void leaveLocalServer(String userId, String serverId) {
+        RoomActor room = room(serverId);
         User user = loadUserIfExists(userId);
 
-        if (server == null || user == null) {
-            return;
-        }
-
-        if (userId.equals(server.getOwnerId())) {
-            sendToClient(userId, "ERROR: Server owner cannot leave");
+        if (room == null || user == null) {
             return;
         }
 
-        server.removeMember(userId);
-        serverDAO.removeMember(serverId, userId);
-        sendToClient(userId, "SERVER_LEFT:" + serverId);
-
         Message leaveMessage = messageFactory.serverLeave(user.getUsername(), serverId);
         String displayLeave = formatForDisplay(leaveMessage);
 
-        broadcastToServer(
-                serverId,
-                "SERVER_MSG:" + serverId + ":SYSTEM:SYSTEM:" + displayLeave
-        );
+        room.tell(server -> {
+            if (userId.equals(server.getOwnerId())) {
+                sendToClient(userId, "ERROR", " Server owner cannot leave");
+                return;
+            }
+
+            server.removeMember(userId);
+            serverDAO.removeMember(serverId, userId);
+            sendToClient(userId, "SERVER_LEFT", serverId);
+
+            broadcastToServer(
+                    server,
+                    "SERVER_MSG",
+                    serverId,
+                    "SYSTEM",
+                    "SYSTEM",
+                    displayLeave
+            );
 
-        System.out.println("User " + userId + " left server: " + serverId);
+            System.out.println("User " + userId + " left server: " + serverId);
+        });
     }
 
-    public synchronized void sendServerMessage(String userId, String serverId, String content) {
-        LocalServer server = localServers.get(serverId);
+    public void sendServerMessage(String userId, String serverId, String content) {
+        RoomActor room = room(serverId);
         User user = loadUserIfExists(userId);
 
-        if (server == null) {
-            sendToClient(userId, "ERROR: Server not found");
+        if (room == null) {
+            sendToClient(userId, "ERROR", " Server not found");
             return;
         }
 
         if (user == null) {
-            sendToClient(userId, "ERROR: User not found");
-            return;
-        }
-
-        if (!server.isMember(userId)) {
-            sendToClient(userId, "ERROR: You are not a member of this server");
+            sendToClient(userId, "ERROR", " User not found");
             return;
         }
 
         Message message = messageFactory.serverMessage(userId, serverId, content);
+        String display = formatForDisplay(message);
 
-        server.addMessage(message);
-        serverMessageDAO.saveMessage(
-                serverId,
-                userId,
-                content,
-                message.getTimestamp()
-        );
+        room.tell(server -> {
+            if (!server.isMember(userId)) {
+                sendToClient(userId, "ERROR", " You are not a member of this server");
+                return;
+            }
 
-        String display = formatForDisplay(message);
+            server.addMessage(message);
+            persistence.submit(ServerMessageDAO.row(
+                    message.getId(),
+                    serverId,
+                    userId,
+                    content,
+                    message.getTimestamp()
+            )).whenComplete(ClientHandler.inCurrentRequest((ignored, error) -> {
+                if (error != null) {
+                    sendToClient(userId, "ERROR", " Message could not be saved");
+                }
+            }));
+            indexForSearch("server:" + serverId, message);
 
-        broadcastToServer(
-                serverId,
-                "SERVER_MSG:" + serverId + ":" + userId + ":" + user.getUsername() + ":" + display
-        );
+            broadcastToServer(
+                    server,
+                    "SERVER_MSG",
+                    serverId,
+                    userId,
+                    user.getUsername(),
+                    display
+            );
 
-        System.out.println("Server message in " + serverId + " from " + userId + ": " + content);
+            System.out.println("Server message in " + serverId + " from " + userId + ": " + content);
+        });
     }
 
-    public synchronized List<String> listLocalServers() {
+    public List<String> listLocalServers() {
         return serverDAO.listServers();
     }
 
-    public synchronized List<String> getServerMembers(String serverId) {
-        List<String> memberIds = serverDAO.getMembers(serverId);
+    public MessagePage getServerHistory(String serverId, boolean before, long cursorTimestamp, String cursorId, int limit) {
+        RoomActor room = room(serverId);
+        if (room != null) {
+            if (!room.ask(LocalServer::isHistoryWarmed).join()) {
+                persistence.flush();
+                MessagePage stored = serverMessageDAO.getPage(serverId, true, Long.MAX_VALUE, "", roomHistoryCapacity);
+                room.ask(server -> {
+                    server.warmHistory(stored.messages(), stored.hasMore());
+                    return null;
+                }).join();
+                metrics.increment("rooms.history.warmups");
+            }
+            MessagePage page = room.ask(server -> server.recentMessages(before, cursorTimestamp, cursorId, limit)).join();
+            if (page != null) {
+                metrics.increment("rooms.history.hits");
+                return page;
+            }
+        }
+        metrics.increment("rooms.history.misses");
+        persistence.flush();
+        return serverMessageDAO.getPage(serverId, before, cursorTimestamp, cursorId, limit);
+    }
+
+    public boolean isServerMember(String serverId, String userId) {
+        RoomActor room = room(serverId);
+        return room != null && room.ask(server -> server.isMember(userId)).join();
+    }
+
+    public List<String> getServerMembers(String serverId) {
+        RoomActor room = room(serverId);
+        List<String> memberIds = room != null
+                ? room.ask(server -> serverDAO.getMembers(serverId)).join()
+                : serverDAO.getMembers(serverId);
         List<String> result = new ArrayList<>();
 
         for (String mid : memberIds) {
@@ -476,32 +742,163 @@ public class ChatServer {
         return result;
     }
 
-    private void broadcastToServer(String serverId, String message) {
-        LocalServer server = localServers.get(serverId);
-        if (server == null) {
-            return;
+    private void broadcastToServer(LocalServer server, String type, String... fields) {
+        long cpuStart = profileBroadcasts ? ThreadCost.cpuNanos() : 0;
+        long allocatedStart = profileBroadcasts ? ThreadCost.allocatedBytes() : 0;
+
+        OutboundMessage message = OutboundMessage.of(type, fields);
+        String[] members = server.memberSnapshot();
+        ToIntFunction<String> sendTo = memberId -> {
+            ClientHandler handler = onlineClients.get(memberId);
+            if (handler == null) {
+                return 0;
+            }
+            handler.send(message);
+            return 1;
+        };
+
+        long start = System.nanoTime();
+        int recipients;
+        if (members.length >= fanOutThreshold) {
+            recipients = FanOut.deliver(fanOutPool, members, fanOutChunkSize, sendTo);
+            metrics.increment("broadcast.parallel");
+        } else {
+            recipients = FanOut.deliverSequentially(members, 0, members.length, sendTo);
+        }
+        long elapsed = System.nanoTime() - start;
+        String bucket = "fanout." + FanOut.sizeBucket(members.length);
+        metrics.increment(bucket + ".count");
+        metrics.add(bucket + ".totalMicros", elapsed / 1_000);
+        metrics.max(bucket + ".maxMicros", elapsed / 1_000);
+        metrics.increment(bucket + "." + FanOut.latencyBucket(elapsed));
+
+        metrics.increment("broadcast.count");
+        metrics.add("broadcast.recipients", recipients);
+        metrics.add("broadcast.encodedBytes", message.encodedBytes());
+        if (profileBroadcasts) {
+            metrics.add("broadcast.cpuNanos", ThreadCost.cpuNanos() - cpuStart);
+            metrics.add("broadcast.allocatedBytes", ThreadCost.allocatedBytes() - allocatedStart);
+        }
+    }
+
+    private void notifyFriendsOnlineStatus(String userId, String username, boolean online) {
+        String status = online ? "ONLINE" : "OFFLINE";
+        List<String> friends = friendDAO.getFriends(userId);
+
+        for (String friendId : friends) {
+            sendToClient(friendId, "STATUS", userId, username, status);
         }
+    }
+
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    PersistenceQueue getPersistence() {
+        return persistence;
+    }
+
+    SlowConsumerPolicy getSlowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+
+    Executor getRequestExecutor() {
+        return requestExecutor;
+    }
 
-        for (String memberId : server.getMembers()) {
-            sendToClient(memberId, message);
+    OutboundCompressor createCompressor() {
+        return compressionEnabled ? new OutboundCompressor(compressionMinBytes, metrics) : null;
+    }
+
+    public String getStatsSummary() {
+        Map<String, Long> stats = new TreeMap<>(metrics.snapshot());
+        long queued = 0;
+        long maxDepth = 0;
+        for (int depth : getOutboundQueueDepths().values()) {
+            queued += depth;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        stats.put("clients.online", (long) onlineClients.size());
+        long roomsQueued = 0;
+        for (RoomActor room : rooms.values()) {
+            roomsQueued += room.pending();
+        }
+        stats.put("rooms.active", (long) rooms.size());
+        stats.put("rooms.queued", roomsQueued);
+        long roomHistoryBytes = 0;
+        long maxRoomHistoryBytes = 0;
+        for (RoomActor room : rooms.values()) {
+            long bytes = room.estimatedHistoryBytes();
+            roomHistoryBytes += bytes;
+            maxRoomHistoryBytes = Math.max(maxRoomHistoryBytes, bytes);
+        }
+        stats.put("memory.rooms.historyBytes", roomHistoryBytes);
+        stats.put("memory.rooms.maxHistoryBytes", maxRoomHistoryBytes);
+        long userBytes = 0;
+        long maxUserBytes = 0;
+        for (User user : users.values()) {
+            long bytes = user.estimatedDirectMessageBytes();
+            userBytes += bytes;
+            maxUserBytes = Math.max(maxUserBytes, bytes);
+        }
+        stats.put("memory.users.cached", (long) users.size());
+        stats.put("memory.users.dmBytes", userBytes);
+        stats.put("memory.users.maxDmBytes", maxUserBytes);
+        long historyRequests = metrics.get("rooms.history.hits") + metrics.get("rooms.history.misses");
+        if (historyRequests > 0) {
+            stats.put("rooms.history.hitRatePercent", metrics.get("rooms.history.hits") * 100 / historyRequests);
+        }
+        if (shards != null) {
+            stats.put("shards.count", (long) shards.size());
+            stats.put("shards.queued", shards.queued());
+        }
+        if (searchIndex != null) {
+            stats.put("search.index.bytes", searchIndex.estimatedBytes());
+            stats.put("search.index.scopes", (long) searchIndex.scopes());
         }
+        stats.put("outbound.queued", queued);
+        stats.put("outbound.maxDepth", maxDepth);
+        stats.putAll(Database.getInstance().stats());
+        stats.put("persistence.depth", (long) persistence.depth());
+        stats.put("persistence.persisted", persistence.persisted());
+        stats.put("persistence.failed", persistence.failed());
+        stats.put("persistence.blockedEnqueues", persistence.blockedEnqueues());
+        stats.put("persistence.lagLastMs", persistence.lastLagMillis());
+        stats.put("persistence.lagMaxMs", persistence.maxLagMillis());
+        stats.put("persistence.oldestPendingMs", persistence.oldestPendingMillis());
+        stats.put("persistence.batches", persistence.batches());
+        stats.put("persistence.batchedRows", persistence.batchedRows());
+        stats.put("persistence.commitP99Micros", persistence.commitLatencyP99Micros());
+        long compressedInput = metrics.get("compression.inputBytes");
+        if (compressedInput > 0) {
+            stats.put("compression.ratioPercent", metrics.get("compression.outputBytes") * 100 / compressedInput);
+        }
+
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, Long> entry : stats.entrySet()) {
+            if (summary.length() > 0) summary.append(",");
+            summary.append(entry.getKey()).append("=").append(entry.getValue());
+        }
+        return summary.toString();
     }
 
-    private void notifyFriendsOnlineStatus(String userId, boolean online) {
-        String status = online ? "ONLINE" : "OFFLINE";
-        List<String> friends = friendDAO.getFriends(userId);
-        User user = users.get(userId);
-        String username = (user != null) ? user.getUsername() : userId;
+    public int getOutboundQueueDepth(String userId) {
+        ClientHandler handler = onlineClients.get(userId);
+        return handler != null ? handler.getOutboundQueueDepth() : 0;
+    }
 
-        for (String friendId : friends) {
-            sendToClient(friendId, "STATUS:" + userId + ":" + username + ":" + status);
+    public Map<String, Integer> getOutboundQueueDepths() {
+        Map<String, Integer> depths = new TreeMap<>();
+        for (Map.Entry<String, ClientHandler> entry : onlineClients.entrySet()) {
+            depths.put(entry.getKey(), entry.getValue().getOutboundQueueDepth());
         }
+        return depths;
     }
 
-    private void sendToClient(String userId, String message) {
+    private void sendToClient(String userId, String type, String... fields) {
         ClientHandler handler = onlineClients.get(userId);
         if (handler != null) {
-            handler.sendMessage(message);
+            handler.send(OutboundMessage.of(type, fields));
         }
     }
 
@@ -520,18 +917,59 @@ public class ChatServer {
         db.model.DbUser dbUser = userDAO.getUserById(userId);
         if (dbUser == null) return null;
 
-        user = new UserBuilder()
+        return new UserBuilder()
                 .setUserId(dbUser.id())
                 .setUsername(dbUser.username())
                 .setEmail(dbUser.email())
                 .setOnline(false)
+                .setDirectMessageLimits(dmCacheMessages, dmCacheConversations)
                 .build();
-        users.put(userId, user);
-        return user;
     }
 
-    public List<Message> searchDMs(String userId, String friendId, String keyword) {
-        return dmDAO.searchMessages(userId, friendId, keyword);
+    public MessagePage searchDMs(String userId, String friendId, String query, int limit, int offset) {
+        long start = System.nanoTime();
+        MessagePage page = null;
+        if (searchIndex != null) {
+            page = searchIndex.search("dm:" + getConversationId(userId, friendId), query, limit, offset, () -> {
+                persistence.flush();
+                return dmDAO.getMessages(userId, friendId);
+            });
+        }
+        if (page == null) {
+            persistence.flush();
+            page = dmDAO.searchMessages(userId, friendId, query, limit, offset);
+        }
+        metrics.increment("search.queries");
+        metrics.add("search.totalMicros", (System.nanoTime() - start) / 1000);
+        return page;
+    }
+
+    public MessagePage searchServerMessages(String serverId, String query, int limit, int offset) {
+        long start = System.nanoTime();
+        MessagePage page = null;
+        if (searchIndex != null) {
+            page = searchIndex.search("server:" + serverId, query, limit, offset, () -> {
+                persistence.flush();
+                return serverMessageDAO.getMessages(serverId);
+            });
+        }
+        if (page == null) {
+            persistence.flush();
+            page = serverMessageDAO.searchMessages(serverId, query, limit, offset);
+        }
+        metrics.increment("search.queries");
+        metrics.add("search.totalMicros", (System.nanoTime() - start) / 1000);
+        return page;
+    }
+
+    private void indexForSearch(String scope, Message message) {
+        if (searchIndex != null) {
+            searchIndex.index(scope, message);
+        }
+    }
+
+    SearchIndex getSearchIndex() {
+        return searchIndex;
     }
 
     private String formatForDisplay(Message message) {
@@ -580,230 +1018,3 @@ public class ChatServer {
         server.start();
     }
 }
-
-class ClientHandler implements Runnable {
-    private final Socket socket;
-    private final ChatServer server;
-    private BufferedReader in;
-    private PrintWriter out;
-    private String userId;
-
-    public ClientHandler(Socket socket, ChatServer server) {
-        this.socket = socket;
-        this.server = server;
-    }
-
-    @Override
-    public void run() {
-        try {
-            in  = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            out = new PrintWriter(socket.getOutputStream(), true);
-
-            String inputLine;
-            while ((inputLine = in.readLine()) != null) {
-                processCommand(inputLine);
-            }
-        } catch (IOException e) {
-            System.err.println("Client handler error: " + e.getMessage());
-        } finally {
-            cleanup();
-        }
-    }
-
-    private void processCommand(String command) {
-        String[] parts = command.split(":", 4);
-        String action = parts[0];
-
-        if (!action.equals("REGISTER") && !action.equals("LOGIN") && userId == null) {
-            sendMessage("ERROR:NOT_LOGGED_IN");
-            return;
-        }
-
-        switch (action) {
-
-            case "REGISTER":
-                if (parts.length >= 4) {
-                    String newUserId = parts[1];
-                    String username  = parts[2];
-                    String password  = parts[3];
-
-                    if (server.userExists(newUserId)) {
-                        sendMessage("REGISTER_FAILED:USER_EXISTS");
-                    } else {
-                        server.registerUser(newUserId, username, "", password);
-                        this.userId = newUserId;
-                        sendMessage("REGISTER_OK:" + newUserId + ":" + username);
-                        server.connectUser(this.userId, this);
-                    }
-                } else {
-                    sendMessage("REGISTER_FAILED:BAD_FORMAT");
-                }
-                break;
-
-            case "LOGIN":
-                if (parts.length >= 3) {
-                    String loginId  = parts[1];
-                    String password = parts[2];
-
-                    if (!server.userExists(loginId)) {
-                        sendMessage("LOGIN_FAILED:NO_SUCH_USER");
-                    } else if (!server.isPasswordValid(loginId, password)) {
-                        sendMessage("LOGIN_FAILED:BAD_PASSWORD");
-                    } else {
-                        this.userId = loginId;
-                        String username = server.resolveUsername(this.userId);
-                        sendMessage("LOGIN_OK:" + this.userId + ":" + username);
-                        server.connectUser(this.userId, this);
-                    }
-                } else {
-                    sendMessage("LOGIN_FAILED:BAD_FORMAT");
-                }
-                break;
-
-            case "FRIEND_REQUEST":
-                if (parts.length >= 2) {
-                    server.sendFriendRequest(userId, parts[1]);
-                }
-                break;
-
-            case "ACCEPT_FRIEND":
-                if (parts.length >= 2) {
-                    server.acceptFriendRequest(userId, parts[1]);
-                }
-                break;
-
-            case "SEND_DM":
-                if (parts.length >= 3) {
-                    server.sendDirectMessage(userId, parts[1], parts[2]);
-                }
-                break;
-
-            case "GET_FRIENDS":
-                List<String> friends = server.getOnlineFriends(userId);
-                sendMessage("FRIENDS:" + String.join(",", friends));
-                break;
-
-            case "CREATE_SERVER":
-                if (parts.length >= 3) {
-                    String serverId   = parts[1];
-                    String serverName = parts[2];
-                    server.createLocalServer(serverId, serverName, userId);
-                }
-                break;
-
-            case "JOIN_SERVER":
-                if (parts.length >= 2) {
-                    server.joinLocalServer(userId, parts[1]);
-                }
-                break;
-
-            case "LEAVE_SERVER":
-                if (parts.length >= 2) {
-                    server.leaveLocalServer(userId, parts[1]);
-                }
-                break;
-
-            case "SERVER_MSG":
-                if (parts.length >= 3) {
-                    server.sendServerMessage(userId, parts[1], parts[2]);
-                }
-                break;
-
-            case "LIST_SERVERS":
-                List<String> servers = server.listLocalServers();
-                sendMessage("SERVERS:" + String.join(",", servers));
-                break;
-
-            case "SERVER_MEMBERS":
-                if (parts.length >= 2) {
-                    List<Message> history = null;
-                    List<String> members = server.getServerMembers(parts[1]);
-                    sendMessage("MEMBERS:" + parts[1] + ":" + String.join(",", members));
-                }
-                break;
-
-            case "BLOCK_USER":
-                if (parts.length >= 2) {
-                    server.blockUser(userId, parts[1]);
-                }
-                break;
-
-            case "UNBLOCK_USER":
-                if (parts.length >= 2) {
-                    server.unblockUser(userId, parts[1]);
-                }
-                break;
-
-            case "GET_BLOCKED":
-                List<String> blocked = server.getBlockedUsers(userId);
-                sendMessage("BLOCKED_LIST:" + String.join(",", blocked));
-                break;
-
-            case "GET_HISTORY":
-                if (parts.length >= 2) {
-                    String friendId = parts[1];
-                    List<Message> history = server.getConversationHistory(userId, friendId);
-
-                    StringBuilder payload = new StringBuilder();
-
-                    for (Message message : history) {
-                        String formattedTime = message.getFormattedTimestamp();
-                        String senderName    = server.resolveUsername(message.getSenderId());
-                        String content       = message.getContent();
-
-                        if (payload.length() > 0) payload.append("|");
-
-                        payload.append(formattedTime)
-                                .append("~")
-                                .append(senderName)
-                                .append("~")
-                                .append(content);
-                    }
-
-                    sendMessage("HISTORY:" + friendId + ":" + payload);
-                }
-                break;
-
-            case "SEARCH_DM": {
-                String friendId = parts[1];
-                String keyword = parts[2];
-
-                List<Message> matches =
-                        server.searchDMs(userId, friendId, keyword);
-
-                StringBuilder payload = new StringBuilder();
-                for (Message message : matches) {
-                    if (payload.length() > 0) payload.append("|");
-                    payload.append(message.getFormattedTimestamp())
-                            .append("~")
-                            .append(server.resolveUsername(message.getSenderId()))
-                            .append("~")
-                            .append(message.getContent());
-                }
-
-                sendMessage("SEARCH_RESULTS:" + friendId + ":" + payload);
-                break;
-            }
-
-        }
-    }
-
-    public void sendMessage(String message) {
-        if (out != null) {
-            out.println(message);
-        }
-    }
-
-    private void cleanup() {
-        try {
-            if (userId != null) {
-                server.disconnectUser(userId);
-            }
-            if (in != null) in.close();
-            if (out != null) out.close();
-            if (socket != null) socket.close();
-        } catch (IOException e) {
-            System.err.println("Cleanup error: " + e.getMessage());
-        }
-    }
-}
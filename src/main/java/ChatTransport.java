@@ -0,0 +1,7 @@
+import java.io.IOException;
+
+public interface ChatTransport {
+    void start() throws IOException;
+
+    void shutdown() throws IOException;
+}
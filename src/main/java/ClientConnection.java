@@ -0,0 +1,9 @@
+public interface ClientConnection {
+    int MAX_LINE_BYTES = 1024 * 1024;
+
+    boolean send(EncodedLine line);
+
+    int getOutboundQueueDepth();
+
+    void close();
+}
@@ -0,0 +1,487 @@
+import Message.Message;
+import db.model.MessagePage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+class ClientHandler {
+    private static final Set<String> CONCURRENT_READS = Set.of(
+            "GET_FRIENDS", "LIST_SERVERS", "SERVER_MEMBERS", "GET_BLOCKED", "GET_HISTORY", "GET_HISTORY_PAGE", "SERVER_HISTORY", "SEARCH_DM", "SEARCH_SERVER", "STATS");
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+    private static final ThreadLocal<RequestContext> CURRENT_REQUEST = new ThreadLocal<>();
+
+    private record RequestContext(ClientHandler handler, long requestId) {
+    }
+
+    static Runnable inCurrentRequest(Runnable task) {
+        RequestContext request = CURRENT_REQUEST.get();
+        if (request == null) {
+            return task;
+        }
+        return () -> runInRequest(request, task);
+    }
+
+    static <T> BiConsumer<T, Throwable> inCurrentRequest(BiConsumer<T, Throwable> callback) {
+        RequestContext request = CURRENT_REQUEST.get();
+        if (request == null) {
+            return callback;
+        }
+        return (value, error) -> runInRequest(request, () -> callback.accept(value, error));
+    }
+
+    private static void runInRequest(RequestContext request, Runnable task) {
+        RequestContext previous = CURRENT_REQUEST.get();
+        CURRENT_REQUEST.set(request);
+        try {
+            task.run();
+        } finally {
+            if (previous == null) {
+                CURRENT_REQUEST.remove();
+            } else {
+                CURRENT_REQUEST.set(previous);
+            }
+        }
+    }
+
+    private final ClientConnection connection;
+    private final ChatServer server;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean overflowing;
+    private volatile boolean binary;
+    private volatile OutboundCompressor compressor;
+    private volatile String userId;
+
+    public ClientHandler(ClientConnection connection, ChatServer server) {
+        this.connection = connection;
+        this.server = server;
+    }
+
+    void processCommand(String command) {
+        long requestId = 0;
+        if (command.startsWith("@")) {
+            int separator = command.indexOf(':');
+            String id = separator < 0 ? command.substring(1) : command.substring(1, separator);
+            try {
+                requestId = Long.parseLong(id);
+            } catch (NumberFormatException e) {
+                requestId = -1;
+            }
+            if (requestId <= 0) {
+                sendReply("ERROR", "BAD_REQUEST_ID");
+                return;
+            }
+            command = separator < 0 ? "" : command.substring(separator + 1);
+        }
+        submit(requestId, command.split(":", 4));
+    }
+
+    void processFrame(BinaryFrameCodec.Frame frame) {
+        submit(frame.requestId(), frame.toParts());
+    }
+
+    private void submit(long requestId, String[] parts) {
+        if (requestId != 0 && userId != null && CONCURRENT_READS.contains(parts[0])) {
+            try {
+                server.getRequestExecutor().execute(() -> dispatch(requestId, parts));
+                server.getMetrics().increment("requests.concurrent");
+                return;
+            } catch (RejectedExecutionException ignored) {
+            }
+        }
+        dispatch(requestId, parts);
+    }
+
+    private void dispatch(long requestId, String[] parts) {
+        if (requestId == 0) {
+            dispatch(parts);
+            return;
+        }
+        CURRENT_REQUEST.set(new RequestContext(this, requestId));
+        try {
+            dispatch(parts);
+        } finally {
+            CURRENT_REQUEST.remove();
+        }
+    }
+
+    private void dispatch(String[] parts) {
+        String action = parts[0];
+
+        if (action.equals("PROTOCOL")) {
+            negotiateProtocol(parts);
+            return;
+        }
+
+        if (action.equals("COMPRESS")) {
+            negotiateCompression(parts);
+            return;
+        }
+
+        if (!action.equals("REGISTER") && !action.equals("LOGIN") && userId == null) {
+            sendReply("ERROR", "NOT_LOGGED_IN");
+            return;
+        }
+
+        switch (action) {
+
+            case "REGISTER":
+                if (parts.length >= 4) {
+                    String newUserId = parts[1];
+                    String username  = parts[2];
+                    String password  = parts[3];
+
+                    if (server.userExists(newUserId)) {
+                        sendReply("REGISTER_FAILED", "USER_EXISTS");
+                    } else {
+                        server.registerUser(newUserId, username, "", password);
+                        this.userId = newUserId;
+                        sendReply("REGISTER_OK", newUserId, username);
+                        server.connectUser(this.userId, this);
+                    }
+                } else {
+                    sendReply("REGISTER_FAILED", "BAD_FORMAT");
+                }
+                break;
+
+            case "LOGIN":
+                if (parts.length >= 3) {
+                    String loginId  = parts[1];
+                    String password = parts[2];
+
+                    if (!server.userExists(loginId)) {
+                        sendReply("LOGIN_FAILED", "NO_SUCH_USER");
+                    } else if (!server.isPasswordValid(loginId, password)) {
+                        sendReply("LOGIN_FAILED", "BAD_PASSWORD");
+                    } else {
+                        this.userId = loginId;
+                        String username = server.resolveUsername(this.userId);
+                        sendReply("LOGIN_OK", this.userId, username);
+                        server.connectUser(this.userId, this);
+                    }
+                } else {
+                    sendReply("LOGIN_FAILED", "BAD_FORMAT");
+                }
+                break;
+
+            case "FRIEND_REQUEST":
+                if (parts.length >= 2) {
+                    server.sendFriendRequest(userId, parts[1]);
+                }
+                break;
+
+            case "ACCEPT_FRIEND":
+                if (parts.length >= 2) {
+                    server.acceptFriendRequest(userId, parts[1]);
+                }
+                break;
+
+            case "SEND_DM":
+                if (parts.length >= 3) {
+                    server.sendDirectMessage(userId, parts[1], parts[2]);
+                }
+                break;
+
+            case "GET_FRIENDS":
+                List<String> friends = server.getOnlineFriends(userId);
+                sendReply("FRIENDS", String.join(",", friends));
+                break;
+
+            case "CREATE_SERVER":
+                if (parts.length >= 3) {
+                    String serverId   = parts[1];
+                    String serverName = parts[2];
+                    server.createLocalServer(serverId, serverName, userId);
+                }
+                break;
+
+            case "JOIN_SERVER":
+                if (parts.length >= 2) {
+                    server.joinLocalServer(userId, parts[1]);
+                }
+                break;
+
+            case "LEAVE_SERVER":
+                if (parts.length >= 2) {
+                    server.leaveLocalServer(userId, parts[1]);
+                }
+                break;
+
+            case "SERVER_MSG":
+                if (parts.length >= 3) {
+                    server.sendServerMessage(userId, parts[1], parts[2]);
+                }
+                break;
+
+            case "LIST_SERVERS":
+                List<String> servers = server.listLocalServers();
+                sendReply("SERVERS", String.join(",", servers));
+                break;
+
+            case "SERVER_MEMBERS":
+                if (parts.length >= 2) {
+                    List<Message> history = null;
+                    List<String> members = server.getServerMembers(parts[1]);
+                    sendReply("MEMBERS", parts[1], String.join(",", members));
+                }
+                break;
+
+            case "BLOCK_USER":
+                if (parts.length >= 2) {
+                    server.blockUser(userId, parts[1]);
+                }
+                break;
+
+            case "UNBLOCK_USER":
+                if (parts.length >= 2) {
+                    server.unblockUser(userId, parts[1]);
+                }
+                break;
+
+            case "GET_BLOCKED":
+                List<String> blocked = server.getBlockedUsers(userId);
+                sendReply("BLOCKED_LIST", String.join(",", blocked));
+                break;
+
+            case "GET_HISTORY":
+                if (parts.length >= 2) {
+                    String friendId = parts[1];
+                    List<Message> history = server.getConversationHistory(userId, friendId);
+                    send(OutboundMessage.entries("HISTORY", friendId, toEntries(history)));
+                }
+                break;
+
+            case "GET_HISTORY_PAGE":
+            case "SERVER_HISTORY":
+                if (parts.length >= 2) {
+                    sendHistoryPage(parts);
+                }
+                break;
+
+            case "STATS":
+                sendReply("STATS", server.getStatsSummary());
+                break;
+
+            case "SEARCH_DM":
+            case "SEARCH_SERVER":
+                if (parts.length >= 3) {
+                    sendSearchResults(parts);
+                }
+                break;
+
+        }
+    }
+
+    private void negotiateProtocol(String[] parts) {
+        String requested = parts.length >= 2 ? parts[1] : "";
+        if (userId != null || !(requested.equals("BINARY") || requested.equals("TEXT"))) {
+            sendReply("PROTOCOL_FAILED", requested);
+            return;
+        }
+        sendReply("PROTOCOL_OK", requested);
+        binary = requested.equals("BINARY");
+    }
+
+    private void negotiateCompression(String[] parts) {
+        String requested = parts.length >= 2 ? parts[1] : "";
+        OutboundCompressor created = null;
+        if (compressor == null && requested.equals(OutboundCompressor.ALGORITHM)) {
+            created = server.createCompressor();
+        }
+        if (created == null) {
+            sendReply("COMPRESS_FAILED", requested);
+            return;
+        }
+        sendReply("COMPRESS_OK", requested);
+        compressor = created;
+    }
+
+    private void sendHistoryPage(String[] parts) {
+        String scopeId = parts[1];
+        boolean room = parts[0].equals("SERVER_HISTORY");
+        if (room && !server.isServerMember(scopeId, userId)) {
+            sendReply("ERROR", " You are not a member of this server");
+            return;
+        }
+
+        int limit = DEFAULT_PAGE_SIZE;
+        boolean before = true;
+        MessagePage.Cursor position = null;
+        MessagePage page;
+        try {
+            if (parts.length >= 3 && !parts[2].isEmpty()) {
+                limit = Math.max(1, Math.min(MAX_PAGE_SIZE, Integer.parseInt(parts[2])));
+            }
+            if (parts.length >= 4) {
+                String[] cursor = String.join(":", Arrays.copyOfRange(parts, 3, parts.length)).split(":", 2);
+                if (!cursor[0].equalsIgnoreCase("before") && !cursor[0].equalsIgnoreCase("after")) {
+                    throw new IllegalArgumentException("Direction must be before or after");
+                }
+                before = cursor[0].equalsIgnoreCase("before");
+                if (cursor.length == 2 && !cursor[1].isEmpty()) {
+                    position = MessagePage.Cursor.parse(cursor[1]);
+                }
+            }
+            long edge = before ? Long.MAX_VALUE : Long.MIN_VALUE;
+            if (room) {
+                page = server.getServerHistory(scopeId, before,
+                        position != null ? position.timestamp() : edge,
+                        position != null ? position.id() : "",
+                        limit);
+            } else {
+                page = server.getConversationPage(userId, scopeId, before,
+                        position != null ? position.timestamp() : edge,
+                        position != null ? position.id() : "",
+                        limit);
+            }
+        } catch (IllegalArgumentException e) {
+            sendReply("ERROR", " Invalid history page request");
+            return;
+        }
+
+        send(OutboundMessage.entries(room ? "SERVER_HISTORY_PAGE" : "HISTORY_PAGE",
+                new String[]{scopeId, String.valueOf(page.hasMore()), page.olderCursor(), page.newerCursor()},
+                toEntries(page.messages())));
+    }
+
+    private void sendSearchResults(String[] parts) {
+        String scopeId = parts[1];
+        String text = String.join(":", Arrays.copyOfRange(parts, 2, parts.length));
+        String[] fields = text.split(":", 3);
+        String query = text;
+        int limit = DEFAULT_PAGE_SIZE;
+        int offset = 0;
+        try {
+            if (fields.length == 3 && isPagingField(fields[0]) && isPagingField(fields[1])) {
+                query = fields[2];
+                if (!fields[0].isEmpty()) {
+                    limit = Math.max(1, Math.min(MAX_PAGE_SIZE, Integer.parseInt(fields[0])));
+                }
+                if (!fields[1].isEmpty()) {
+                    offset = Math.max(0, Integer.parseInt(fields[1]));
+                }
+            }
+        } catch (NumberFormatException e) {
+            sendReply("ERROR", " Invalid search request");
+            return;
+        }
+
+        MessagePage page;
+        if (parts[0].equals("SEARCH_SERVER")) {
+            if (!server.isServerMember(scopeId, userId)) {
+                sendReply("ERROR", " You are not a member of this server");
+                return;
+            }
+            page = server.searchServerMessages(scopeId, query, limit, offset);
+        } else {
+            page = server.searchDMs(userId, scopeId, query, limit, offset);
+        }
+        String nextCursor = page.hasMore() ? String.valueOf(offset + page.messages().size()) : "";
+        send(OutboundMessage.entries("SEARCH_RESULTS", new String[]{scopeId, nextCursor}, toEntries(page.messages())));
+    }
+
+    private static boolean isPagingField(String field) {
+        return field.chars().allMatch(Character::isDigit);
+    }
+
+    private List<String[]> toEntries(List<Message> messages) {
+        List<String[]> entries = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            entries.add(new String[]{
+                    message.getFormattedTimestamp(),
+                    server.resolveUsername(message.getSenderId()),
+                    message.getContent()
+            });
+        }
+        return entries;
+    }
+
+    public void sendReply(String type, String... fields) {
+        send(OutboundMessage.of(type, fields));
+    }
+
+    void send(OutboundMessage message) {
+        RequestContext request = CURRENT_REQUEST.get();
+        if (request != null && request.handler() == this) {
+            message = message.tagged(request.requestId());
+        }
+        SlowConsumerPolicy policy = server.getSlowConsumerPolicy();
+        if (policy.admit(this, message, connection.getOutboundQueueDepth())) {
+            sendDirect(message);
+        }
+    }
+
+    void sendDirect(OutboundMessage message) {
+        EncodedLine line;
+        try {
+            line = message.encoded(binary);
+        } catch (IllegalArgumentException e) {
+            line = tooLarge(message);
+        }
+        OutboundCompressor active = compressor;
+        if (active != null && active.shouldCompress(line, binary)) {
+            synchronized (active) {
+                if (active.isEnded()) {
+                    return;
+                }
+                EncodedLine compressed;
+                try {
+                    compressed = active.compress(line, binary);
+                } catch (IllegalArgumentException e) {
+                    active.reset();
+                    compressed = tooLarge(message);
+                }
+                if (!connection.send(compressed)) {
+                    active.reset();
+                    server.getMetrics().increment("outbound.dropped.full");
+                }
+            }
+            return;
+        }
+        if (!connection.send(line)) {
+            server.getMetrics().increment("outbound.dropped.full");
+        }
+    }
+
+    private EncodedLine tooLarge(OutboundMessage message) {
+        server.getMetrics().increment("outbound.dropped.tooLarge");
+        return OutboundMessage.of("ERROR", "REPLY_TOO_LARGE").tagged(message.requestId()).encoded(binary);
+    }
+
+    boolean isBinary() {
+        return binary;
+    }
+
+    boolean isOverflowing() {
+        return overflowing;
+    }
+
+    void setOverflowing(boolean overflowing) {
+        this.overflowing = overflowing;
+    }
+
+    public int getOutboundQueueDepth() {
+        return connection.getOutboundQueueDepth();
+    }
+
+    void cleanup() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (userId != null) {
+            server.disconnectUser(userId);
+        }
+        connection.close();
+        OutboundCompressor active = compressor;
+        if (active != null) {
+            synchronized (active) {
+                active.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+public final class EncodedLine {
+    private static final byte NEWLINE = '\n';
+
+    private final String text;
+    private final byte[] bytes;
+
+    private EncodedLine(String text, byte[] bytes) {
+        this.text = text;
+        this.bytes = bytes;
+    }
+
+    public static EncodedLine of(String text) {
+        byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[encoded.length + 1];
+        System.arraycopy(encoded, 0, bytes, 0, encoded.length);
+        bytes[encoded.length] = NEWLINE;
+        return new EncodedLine(text, bytes);
+    }
+
+    public static EncodedLine frame(byte[] frame) {
+        return new EncodedLine(null, frame);
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    void deflateInto(Deflater deflater) {
+        deflater.setInput(bytes);
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes);
+    }
+
+    void copyTo(ByteBuffer target, int offset, int length) {
+        target.put(bytes, offset, length);
+    }
+}
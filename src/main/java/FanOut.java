@@ -0,0 +1,82 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.ToIntFunction;
+
+public final class FanOut {
+    private static final String[] SIZE_BUCKETS = {"lt100", "lt1k", "lt10k", "10kPlus"};
+
+    private FanOut() {
+    }
+
+    public static int deliver(ForkJoinPool pool, String[] members, int chunkSize, ToIntFunction<String> sendTo) {
+        return pool.invoke(new Chunk(members, 0, members.length, Math.max(1, chunkSize), sendTo));
+    }
+
+    static int deliverSequentially(String[] members, int from, int to, ToIntFunction<String> sendTo) {
+        int delivered = 0;
+        for (int i = from; i < to; i++) {
+            delivered += sendTo.applyAsInt(members[i]);
+        }
+        return delivered;
+    }
+
+    public static String sizeBucket(int members) {
+        if (members < 100) {
+            return SIZE_BUCKETS[0];
+        }
+        if (members < 1_000) {
+            return SIZE_BUCKETS[1];
+        }
+        if (members < 10_000) {
+            return SIZE_BUCKETS[2];
+        }
+        return SIZE_BUCKETS[3];
+    }
+
+    public static String latencyBucket(long nanos) {
+        long micros = nanos / 1_000;
+        if (micros < 100) {
+            return "under100us";
+        }
+        if (micros < 1_000) {
+            return "under1ms";
+        }
+        if (micros < 10_000) {
+            return "under10ms";
+        }
+        if (micros < 100_000) {
+            return "under100ms";
+        }
+        return "over100ms";
+    }
+
+    private static final class Chunk extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient String[] members;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final transient ToIntFunction<String> sendTo;
+
+        Chunk(String[] members, int from, int to, int chunkSize, ToIntFunction<String> sendTo) {
+            this.members = members;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.sendTo = sendTo;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= chunkSize) {
+                return deliverSequentially(members, from, to, sendTo);
+            }
+            int middle = (from + to) >>> 1;
+            Chunk left = new Chunk(members, from, middle, chunkSize, sendTo);
+            Chunk right = new Chunk(members, middle, to, chunkSize, sendTo);
+            left.fork();
+            return right.compute() + left.join();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+import Message.Message;
+import db.FullTextQuery;
+import db.model.MessagePage;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class InvertedIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final long DOCUMENT_OVERHEAD_BYTES = 136;
+    private static final long TERM_OVERHEAD_BYTES = 120;
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final List<Message> documents = new ArrayList<>();
+    private int[] lengths = new int[16];
+    private long totalLength;
+    private long estimatedBytes;
+    private boolean loaded;
+    private boolean evicted;
+    private volatile long lastSearchedNanos = System.nanoTime();
+
+    static List<String> tokenize(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < folded.length(); i++) {
+            if (Character.isLetterOrDigit(folded.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(folded.substring(start));
+        }
+        return tokens;
+    }
+
+    synchronized long add(Message message) {
+        if (evicted) {
+            return 0;
+        }
+        return append(message);
+    }
+
+    synchronized long backfill(List<Message> stored) {
+        if (evicted) {
+            return 0;
+        }
+        long before = estimatedBytes;
+        List<Message> live = new ArrayList<>(documents);
+        terms.clear();
+        documents.clear();
+        lengths = new int[Math.max(16, stored.size() + live.size())];
+        totalLength = 0;
+        estimatedBytes = 4L * lengths.length;
+
+        Set<String> storedKeys = new HashSet<>();
+        for (Message message : stored) {
+            storedKeys.add(identity(message));
+            append(message);
+        }
+        for (Message message : live) {
+            if (!storedKeys.contains(identity(message))) {
+                append(message);
+            }
+        }
+        loaded = true;
+        return estimatedBytes - before;
+    }
+
+    synchronized long evict() {
+        evicted = true;
+        return estimatedBytes;
+    }
+
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    synchronized long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    synchronized int size() {
+        return documents.size();
+    }
+
+    long lastSearchedNanos() {
+        return lastSearchedNanos;
+    }
+
+    synchronized MessagePage search(List<FullTextQuery.Term> query, int limit, int offset) {
+        lastSearchedNanos = System.nanoTime();
+        List<Match> matches = new ArrayList<>();
+        List<List<String>> phrases = new ArrayList<>();
+        List<Boolean> phrasePrefixes = new ArrayList<>();
+        for (FullTextQuery.Term term : query) {
+            List<String> tokens = tokenize(term.text());
+            if (tokens.isEmpty()) {
+                return new MessagePage(List.of(), false);
+            }
+            for (int i = 0; i < tokens.size(); i++) {
+                matches.add(match(tokens.get(i), term.prefix() && i == tokens.size() - 1));
+            }
+            if (tokens.size() > 1) {
+                phrases.add(tokens);
+                phrasePrefixes.add(term.prefix());
+            }
+        }
+
+        Match smallest = matches.get(0);
+        for (Match match : matches) {
+            if (match.size < smallest.size) {
+                smallest = match;
+            }
+        }
+
+        int n = documents.size();
+        double averageLength = n == 0 ? 1 : Math.max(1, (double) totalLength / n);
+        List<double[]> scored = new ArrayList<>();
+        for (int i = 0; i < smallest.size; i++) {
+            int document = smallest.documents[i];
+            double score = 0;
+            boolean all = true;
+            for (Match match : matches) {
+                int index = Arrays.binarySearch(match.documents, 0, match.size, document);
+                if (index < 0) {
+                    all = false;
+                    break;
+                }
+                int frequency = match.frequencies[index];
+                double idf = Math.max(1e-6, Math.log((n - match.size + 0.5) / (match.size + 0.5)));
+                double norm = K1 * (1 - B + B * lengths[document] / averageLength);
+                score += idf * frequency * (K1 + 1) / (frequency + norm);
+            }
+            if (all && containsPhrases(documents.get(document), phrases, phrasePrefixes)) {
+                scored.add(new double[]{score, document});
+            }
+        }
+        scored.sort((a, b) -> a[0] != b[0] ? Double.compare(b[0], a[0]) : Double.compare(a[1], b[1]));
+
+        List<Message> page = new ArrayList<>();
+        for (int i = offset; i < scored.size() && page.size() < limit; i++) {
+            page.add(documents.get((int) scored.get(i)[1]));
+        }
+        return new MessagePage(page, scored.size() > offset + page.size());
+    }
+
+    private Match match(String token, boolean prefix) {
+        if (!prefix) {
+            Postings postings = terms.get(token);
+            return postings == null ? new Match(new int[0], new int[0], 0) : postings.decode();
+        }
+        NavigableMap<String, Postings> range = terms.subMap(token, true, token + Character.MAX_VALUE, false);
+        if (range.size() == 1) {
+            return range.firstEntry().getValue().decode();
+        }
+        int[] frequencies = new int[documents.size()];
+        int size = 0;
+        for (Postings postings : range.values()) {
+            Match match = postings.decode();
+            for (int i = 0; i < match.size; i++) {
+                if (frequencies[match.documents[i]] == 0) {
+                    size++;
+                }
+                frequencies[match.documents[i]] += match.frequencies[i];
+            }
+        }
+        int[] merged = new int[size];
+        int[] mergedFrequencies = new int[size];
+        int next = 0;
+        for (int document = 0; document < frequencies.length && next < size; document++) {
+            if (frequencies[document] > 0) {
+                merged[next] = document;
+                mergedFrequencies[next++] = frequencies[document];
+            }
+        }
+        return new Match(merged, mergedFrequencies, size);
+    }
+
+    private static boolean containsPhrases(Message message, List<List<String>> phrases, List<Boolean> prefixes) {
+        if (phrases.isEmpty()) {
+            return true;
+        }
+        List<String> tokens = tokenize(message.getContent());
+        for (int p = 0; p < phrases.size(); p++) {
+            if (!containsPhrase(tokens, phrases.get(p), prefixes.get(p))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsPhrase(List<String> tokens, List<String> phrase, boolean prefix) {
+        for (int start = 0; start + phrase.size() <= tokens.size(); start++) {
+            boolean matched = true;
+            for (int i = 0; i < phrase.size() && matched; i++) {
+                String token = tokens.get(start + i);
+                boolean last = i == phrase.size() - 1;
+                matched = last && prefix ? token.startsWith(phrase.get(i)) : token.equals(phrase.get(i));
+            }
+            if (matched) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long append(Message message) {
+        long before = estimatedBytes;
+        int document = documents.size();
+        documents.add(message);
+        if (document == lengths.length) {
+            lengths = Arrays.copyOf(lengths, lengths.length * 2);
+            estimatedBytes += 4L * document;
+        }
+
+        List<String> tokens = tokenize(message.getContent());
+        lengths[document] = tokens.size();
+        totalLength += tokens.size();
+        estimatedBytes += DOCUMENT_OVERHEAD_BYTES + 2L * message.getContent().length();
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Postings postings = terms.get(entry.getKey());
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(entry.getKey(), postings);
+                estimatedBytes += TERM_OVERHEAD_BYTES + 2L * entry.getKey().length() + postings.capacityBytes();
+            }
+            estimatedBytes += postings.add(document, entry.getValue());
+        }
+        return estimatedBytes - before;
+    }
+
+    private static String identity(Message message) {
+        return message.getSenderId() + "\u0000" + message.getTimestamp() + "\u0000" + message.getContent();
+    }
+
+    private record Match(int[] documents, int[] frequencies, int size) {
+    }
+
+    static final class Postings {
+        private int[] deltas = new int[2];
+        private byte[] frequencies = new byte[2];
+        private int size;
+        private int lastDocument;
+
+        long add(int document, int frequency) {
+            long grown = 0;
+            if (size == deltas.length) {
+                long before = capacityBytes();
+                deltas = Arrays.copyOf(deltas, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+                grown = capacityBytes() - before;
+            }
+            deltas[size] = document - lastDocument;
+            frequencies[size] = (byte) Math.min(Byte.MAX_VALUE, frequency);
+            lastDocument = document;
+            size++;
+            return grown;
+        }
+
+        long capacityBytes() {
+            return 5L * deltas.length;
+        }
+
+        Match decode() {
+            int[] documents = new int[size];
+            int[] counts = new int[size];
+            int document = 0;
+            for (int i = 0; i < size; i++) {
+                document += deltas[i];
+                documents[i] = document;
+                counts[i] = frequencies[i];
+            }
+            return new Match(documents, counts, size);
+        }
+    }
+}
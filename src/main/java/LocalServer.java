@@ -1,21 +1,27 @@
 import Message.Message;
+import db.model.MessagePage;
 import java.util.*;
 
 public class LocalServer {
     private static final String SYSTEM_OWNER = "SYSTEM";
+    public static final int DEFAULT_HISTORY_CAPACITY = 256;
     private final String serverId;
     private final String serverName;
     private final String ownerId;
-    private final Set<String> members;
-    private final List<Message> messages;
+    private volatile Membership members;
+    private final MessageRing messages;
 
     public LocalServer(String serverId, String serverName, String ownerId) {
+        this(serverId, serverName, ownerId, DEFAULT_HISTORY_CAPACITY);
+    }
+
+    public LocalServer(String serverId, String serverName, String ownerId, int historyCapacity) {
         validateConstructorParameters(serverId, serverName, ownerId);
         this.serverId = serverId;
         this.serverName = serverName;
         this.ownerId = ownerId;
-        this.members = new HashSet<>();
-        this.messages = new ArrayList<>();
+        this.members = Membership.EMPTY;
+        this.messages = new MessageRing(historyCapacity);
         addOwnerAsMember();
     }
 
@@ -26,7 +32,7 @@ public class LocalServer {
     }
 
     private void addOwnerAsMember() {
-        members.add(ownerId);
+        members = members.with(ownerId);
     }
 
     public String getServerId() {
@@ -42,22 +48,42 @@ public class LocalServer {
     }
 
     public Set<String> getMembers() {
-        return new HashSet<>(members);
+        return new HashSet<>(members.lookup);
+    }
+
+    String[] memberSnapshot() {
+        return members.ids;
     }
 
     public List<Message> getMessages() {
-        return new ArrayList<>(messages);
+        return messages.snapshot();
+    }
+
+    public long estimatedHistoryBytes() {
+        return messages.estimatedBytes();
+    }
+
+    public boolean isHistoryWarmed() {
+        return messages.isWarmed();
+    }
+
+    public void warmHistory(List<Message> stored, boolean olderInStore) {
+        messages.warm(stored, olderInStore);
+    }
+
+    public MessagePage recentMessages(boolean before, long timestamp, String id, int limit) {
+        return messages.page(before, timestamp, id, limit);
     }
 
     public void addMember(String userId) {
-        if (userId != null) {
-            members.add(userId);
+        if (userId != null && !isMember(userId)) {
+            members = members.with(userId);
         }
     }
 
     public void removeMember(String userId) {
-        if (canRemoveMember(userId)) {
-            members.remove(userId);
+        if (canRemoveMember(userId) && isMember(userId)) {
+            members = members.without(userId);
         }
     }
 
@@ -74,7 +100,7 @@ public class LocalServer {
     }
 
     public boolean isMember(String userId) {
-        return members.contains(userId);
+        return members.lookup.contains(userId);
     }
 
     public void addMessage(Message message) {
@@ -85,14 +111,47 @@ public class LocalServer {
 
     public int getMemberCount() {
         if (isSystemOwned()) {
-            return Math.max(0, members.size() - 1);
+            return Math.max(0, members.ids.length - 1);
         }
-        return members.size();
+        return members.ids.length;
     }
 
     @Override
     public String toString() {
         return String.format("LocalServer{serverId='%s', serverName='%s', ownerId='%s', memberCount=%d}",
-                serverId, serverName, ownerId, members.size());
+                serverId, serverName, ownerId, members.ids.length);
+    }
+
+    private static final class Membership {
+        static final Membership EMPTY = new Membership(new String[0], Set.of());
+
+        final String[] ids;
+        final Set<String> lookup;
+
+        private Membership(String[] ids, Set<String> lookup) {
+            this.ids = ids;
+            this.lookup = lookup;
+        }
+
+        Membership with(String userId) {
+            String[] next = Arrays.copyOf(ids, ids.length + 1);
+            next[ids.length] = userId;
+            Set<String> nextLookup = new HashSet<>(lookup);
+            nextLookup.add(userId);
+            return new Membership(next, Collections.unmodifiableSet(nextLookup));
+        }
+
+        Membership without(String userId) {
+            String[] next = new String[ids.length - 1];
+            int i = 0;
+            for (String id : ids) {
+                if (!id.equals(userId)) {
+                    next[i++] = id;
+                }
+            }
+            Set<String> nextLookup = new HashSet<>(lookup);
+            nextLookup.remove(userId);
+            return new Membership(next, Collections.unmodifiableSet(nextLookup));
+        }
     }
 }
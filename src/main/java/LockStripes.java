@@ -0,0 +1,54 @@
+import java.util.concurrent.locks.ReentrantLock;
+
+public class LockStripes {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public LockStripes(int minimumStripes) {
+        int size = Integer.highestOneBit(Math.max(1, minimumStripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public int size() {
+        return locks.length;
+    }
+
+    int indexFor(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public ReentrantLock lockFor(String key) {
+        return locks[indexFor(key)];
+    }
+
+    public void lock(String key) {
+        lockFor(key).lock();
+    }
+
+    public void unlock(String key) {
+        lockFor(key).unlock();
+    }
+
+    public void lockBoth(String first, String second) {
+        int a = indexFor(first);
+        int b = indexFor(second);
+        locks[Math.min(a, b)].lock();
+        if (a != b) {
+            locks[Math.max(a, b)].lock();
+        }
+    }
+
+    public void unlockBoth(String first, String second) {
+        int a = indexFor(first);
+        int b = indexFor(second);
+        if (a != b) {
+            locks[Math.max(a, b)].unlock();
+        }
+        locks[Math.min(a, b)].unlock();
+    }
+}
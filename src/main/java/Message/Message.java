@@ -44,6 +44,14 @@ public class Message {
     public long getTimestamp() { return timestamp; }
     public void setTimestamp(long timestamp) { this.timestamp =  timestamp; }
 
+    public long estimatedBytes() {
+        return 200 + 2L * (length(id) + length(senderId) + length(receiverId) + length(content));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
     public String getFormattedTimestamp() {
         java.text.SimpleDateFormat fmt =
                 new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
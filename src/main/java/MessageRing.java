@@ -0,0 +1,118 @@
+import Message.Message;
+import db.model.MessagePage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MessageRing {
+    private static final Comparator<Message> ORDER =
+            Comparator.comparingLong(Message::getTimestamp).thenComparing(Message::getId);
+
+    private final Message[] slots;
+    private int head;
+    private int size;
+    private boolean warmed;
+    private boolean complete;
+    private volatile long estimatedBytes;
+
+    public MessageRing(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ring capacity must be at least 1");
+        }
+        this.slots = new Message[capacity];
+    }
+
+    public void add(Message message) {
+        Message overwritten = slots[head];
+        estimatedBytes += message.estimatedBytes() - (overwritten != null ? overwritten.estimatedBytes() : 0);
+        slots[head] = message;
+        head = (head + 1) % slots.length;
+        if (size < slots.length) {
+            size++;
+        } else {
+            complete = false;
+        }
+    }
+
+    public List<Message> snapshot() {
+        List<Message> messages = new ArrayList<>(size);
+        int start = (head - size + slots.length) % slots.length;
+        for (int i = 0; i < size; i++) {
+            messages.add(slots[(start + i) % slots.length]);
+        }
+        return messages;
+    }
+
+    public boolean isWarmed() {
+        return warmed;
+    }
+
+    public void warm(List<Message> stored, boolean olderInStore) {
+        Map<String, Message> merged = new LinkedHashMap<>();
+        for (Message message : stored) {
+            merged.put(message.getId(), message);
+        }
+        for (Message message : snapshot()) {
+            merged.putIfAbsent(message.getId(), message);
+        }
+        List<Message> ordered = new ArrayList<>(merged.values());
+        ordered.sort(ORDER);
+        List<Message> kept = ordered.subList(Math.max(0, ordered.size() - slots.length), ordered.size());
+
+        head = 0;
+        size = 0;
+        estimatedBytes = 0;
+        Arrays.fill(slots, null);
+        for (Message message : kept) {
+            add(message);
+        }
+        complete = !olderInStore && kept.size() == ordered.size();
+        warmed = true;
+    }
+
+    public MessagePage page(boolean before, long timestamp, String id, int limit) {
+        List<Message> ordered = snapshot();
+        ordered.sort(ORDER);
+        if (before) {
+            int end = 0;
+            while (end < ordered.size() && compare(ordered.get(end), timestamp, id) < 0) {
+                end++;
+            }
+            if (end > limit) {
+                return new MessagePage(new ArrayList<>(ordered.subList(end - limit, end)), true);
+            }
+            return complete ? new MessagePage(new ArrayList<>(ordered.subList(0, end)), false) : null;
+        }
+
+        if (!complete && (ordered.isEmpty() || compare(ordered.get(0), timestamp, id) > 0)) {
+            return null;
+        }
+        int start = 0;
+        while (start < ordered.size() && compare(ordered.get(start), timestamp, id) <= 0) {
+            start++;
+        }
+        int end = Math.min(ordered.size(), start + limit);
+        return new MessagePage(new ArrayList<>(ordered.subList(start, end)), ordered.size() > end);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    private static int compare(Message message, long timestamp, String id) {
+        int byTime = Long.compare(message.getTimestamp(), timestamp);
+        return byTime != 0 ? byTime : message.getId().compareTo(id);
+    }
+}
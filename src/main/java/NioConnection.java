@@ -0,0 +1,277 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public final class NioConnection implements ClientConnection {
+    private static final byte NEWLINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final int WRITE_BUFFER_SIZE = 8192;
+    private static final int INITIAL_READ_CAPACITY = 1024;
+    private static final int MAX_QUEUED_REQUESTS = 256;
+
+    private final SocketChannel channel;
+    private final NioEventLoop eventLoop;
+    private final ClientHandler handler;
+    private final SerialExecutor requests;
+    private final CompletableFuture<Void> cleanedUp = new CompletableFuture<>();
+    private byte[] inbound = new byte[INITIAL_READ_CAPACITY];
+    private int inboundLength;
+    private int scanned;
+    private final OutboundQueue outbound;
+    private final ServerMetrics metrics;
+    private final AtomicBoolean writeRequested = new AtomicBoolean();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).limit(0);
+    private EncodedLine carry;
+    private int carryOffset;
+    private SelectionKey key;
+    private volatile boolean closed;
+    private boolean disconnected;
+    private volatile boolean readPaused;
+
+    public NioConnection(SocketChannel channel, NioEventLoop eventLoop, ChatServer server, OutboundQueue outbound) {
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.outbound = outbound;
+        this.metrics = server.getMetrics();
+        this.handler = new ClientHandler(this, server);
+        this.requests = new SerialExecutor(server.getRequestExecutor());
+    }
+
+    void attach(SelectionKey key) {
+        this.key = key;
+    }
+
+    void onReadable(ByteBuffer buffer) {
+        buffer.clear();
+        int read;
+        try {
+            read = channel.read(buffer);
+        } catch (IOException e) {
+            System.err.println("Client handler error: " + e.getMessage());
+            disconnect();
+            return;
+        }
+
+        if (read == -1) {
+            disconnect();
+            return;
+        }
+
+        buffer.flip();
+        append(buffer);
+        try {
+            processInbound();
+        } catch (IOException e) {
+            System.err.println("Client protocol error: " + e.getMessage());
+            disconnect();
+        }
+    }
+
+    private void append(ByteBuffer buffer) {
+        int needed = inboundLength + buffer.remaining();
+        if (needed > inbound.length) {
+            inbound = Arrays.copyOf(inbound, Math.max(needed, inbound.length * 2));
+        }
+        buffer.get(inbound, inboundLength, buffer.remaining());
+        inboundLength = needed;
+    }
+
+    private void processInbound() throws IOException {
+        int pos = 0;
+        while (pos < inboundLength && !closed && !readPaused) {
+            if (handler.isBinary()) {
+                int frameLength = BinaryFrameCodec.completeFrameLength(inbound, pos, inboundLength);
+                if (frameLength < 0) {
+                    break;
+                }
+                BinaryFrameCodec.Frame frame = BinaryFrameCodec.decode(inbound, pos, frameLength);
+                queue(() -> handler.processFrame(frame), frame.opcode() == BinaryFrameCodec.Opcode.PROTOCOL);
+                pos += frameLength;
+                scanned = pos;
+            } else {
+                int newline = indexOfNewline(Math.max(pos, scanned));
+                checkLineLength((newline < 0 ? inboundLength : newline) - pos);
+                if (newline < 0) {
+                    scanned = inboundLength;
+                    break;
+                }
+                String line = decodeLine(pos, newline);
+                queue(() -> handler.processCommand(line), switchesProtocol(line));
+                pos = newline + 1;
+                scanned = pos;
+            }
+        }
+        compact(pos);
+    }
+
+    private void queue(Runnable command, boolean switchesProtocol) {
+        if (switchesProtocol || requests.pending() >= MAX_QUEUED_REQUESTS) {
+            pauseReading();
+        }
+        requests.execute(() -> {
+            try {
+                command.run();
+            } finally {
+                if (readPaused && requests.pending() < MAX_QUEUED_REQUESTS / 2) {
+                    eventLoop.resumeReading(this);
+                }
+            }
+        });
+    }
+
+    private static boolean switchesProtocol(String line) {
+        String command = line.startsWith("@") ? line.substring(line.indexOf(':') + 1) : line;
+        return command.startsWith("PROTOCOL");
+    }
+
+    private void pauseReading() {
+        readPaused = true;
+        if (key != null && key.isValid()) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        }
+    }
+
+    void resumeReading() {
+        if (!readPaused || closed || key == null || !key.isValid()) {
+            return;
+        }
+        readPaused = false;
+        key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        try {
+            processInbound();
+        } catch (IOException e) {
+            System.err.println("Client protocol error: " + e.getMessage());
+            disconnect();
+        }
+    }
+
+    private static void checkLineLength(int length) throws IOException {
+        if (length > MAX_LINE_BYTES) {
+            throw new IOException("Line too long: " + length + " bytes");
+        }
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < inboundLength; i++) {
+            if (inbound[i] == NEWLINE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String decodeLine(int start, int end) {
+        int length = end - start;
+        if (length > 0 && inbound[end - 1] == CARRIAGE_RETURN) {
+            length--;
+        }
+        return new String(inbound, start, length, StandardCharsets.UTF_8);
+    }
+
+    private void compact(int consumed) {
+        if (consumed == 0) {
+            return;
+        }
+        int remaining = inboundLength - consumed;
+        System.arraycopy(inbound, consumed, inbound, 0, remaining);
+        inboundLength = remaining;
+        scanned = Math.max(0, scanned - consumed);
+        if (remaining == 0 && inbound.length > INITIAL_READ_CAPACITY * 64) {
+            inbound = new byte[INITIAL_READ_CAPACITY];
+        }
+    }
+
+    @Override
+    public boolean send(EncodedLine line) {
+        if (closed || !outbound.offer(line)) {
+            return false;
+        }
+        if (writeRequested.compareAndSet(false, true)) {
+            eventLoop.requestWrite(this);
+        }
+        return true;
+    }
+
+    @Override
+    public int getOutboundQueueDepth() {
+        return outbound.depth();
+    }
+
+    void flushOutbound() {
+        if (closed || key == null || !key.isValid()) {
+            return;
+        }
+        writeRequested.set(false);
+        try {
+            while (writeBuffer.hasRemaining() || fillWriteBuffer()) {
+                channel.write(writeBuffer);
+                metrics.increment("outbound.flushes");
+                if (writeBuffer.hasRemaining()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            System.err.println("Client write error: " + e.getMessage());
+            disconnect();
+        }
+    }
+
+    private boolean fillWriteBuffer() {
+        writeBuffer.clear();
+        while (writeBuffer.hasRemaining()) {
+            if (carry == null) {
+                carry = outbound.poll();
+                if (carry == null) {
+                    break;
+                }
+                carryOffset = 0;
+                metrics.increment("outbound.linesWritten");
+            }
+            int length = Math.min(writeBuffer.remaining(), carry.length() - carryOffset);
+            carry.copyTo(writeBuffer, carryOffset, length);
+            carryOffset += length;
+            if (carryOffset == carry.length()) {
+                carry = null;
+            }
+        }
+        writeBuffer.flip();
+        return writeBuffer.hasRemaining();
+    }
+
+    void disconnect() {
+        if (disconnected) {
+            return;
+        }
+        disconnected = true;
+        requests.execute(() -> {
+            try {
+                handler.cleanup();
+            } finally {
+                cleanedUp.complete(null);
+            }
+        });
+    }
+
+    CompletableFuture<Void> cleanedUp() {
+        return cleanedUp;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        outbound.clear();
+        if (key != null) key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Cleanup error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public final class NioEventLoop implements Runnable {
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final long SHUTDOWN_WAIT_MILLIS = 5_000;
+
+    private final ChatServer server;
+    private final int outboundQueueCapacity;
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+    private final Queue<NioConnection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Queue<NioConnection> pendingResumes = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final List<CompletableFuture<Void>> cleanups = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public NioEventLoop(ChatServer server, String name, int outboundQueueCapacity) throws IOException {
+        this.server = server;
+        this.outboundQueueCapacity = outboundQueueCapacity;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void register(SocketChannel channel) {
+        pendingChannels.add(channel);
+        selector.wakeup();
+    }
+
+    public void requestWrite(NioConnection connection) {
+        pendingWrites.add(connection);
+        selector.wakeup();
+    }
+
+    public void resumeReading(NioConnection connection) {
+        pendingResumes.add(connection);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                registerPendingChannels();
+                flushPendingWrites();
+                resumePendingReads();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handleKey(key);
+                }
+            } catch (IOException e) {
+                System.err.println("Event loop error: " + e.getMessage());
+            }
+        }
+        closeSelector();
+    }
+
+    private void registerPendingChannels() {
+        SocketChannel channel;
+        while ((channel = pendingChannels.poll()) != null) {
+            try {
+                NioConnection connection = new NioConnection(channel, this, server, new OutboundQueue(outboundQueueCapacity));
+                connection.attach(channel.register(selector, SelectionKey.OP_READ, connection));
+            } catch (IOException e) {
+                System.err.println("Failed to register client: " + e.getMessage());
+            }
+        }
+    }
+
+    private void flushPendingWrites() {
+        NioConnection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            connection.flushOutbound();
+        }
+    }
+
+    private void resumePendingReads() {
+        NioConnection connection;
+        while ((connection = pendingResumes.poll()) != null) {
+            try {
+                connection.resumeReading();
+            } catch (RuntimeException e) {
+                System.err.println("Client handler error: " + e.getMessage());
+                connection.disconnect();
+            }
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        NioConnection connection = (NioConnection) key.attachment();
+        try {
+            if (key.isValid() && key.isReadable()) {
+                connection.onReadable(readBuffer);
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flushOutbound();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Client handler error: " + e.getMessage());
+            connection.disconnect();
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        try {
+            thread.join(SHUTDOWN_WAIT_MILLIS);
+            CompletableFuture<?>[] pending;
+            synchronized (cleanups) {
+                pending = cleanups.toArray(new CompletableFuture<?>[0]);
+            }
+            CompletableFuture.allOf(pending).get(SHUTDOWN_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Client cleanup did not finish: " + e);
+        }
+    }
+
+    private void closeSelector() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioConnection connection) {
+                try {
+                    connection.disconnect();
+                    synchronized (cleanups) {
+                        cleanups.add(connection.cleanedUp());
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Error closing client: " + e.getMessage());
+                }
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("Error closing selector: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NioTransport implements ChatTransport {
+    private final ChatServer server;
+    private final ServerConfig config;
+    private final NioEventLoop[] eventLoops;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private ServerSocketChannel serverChannel;
+    private ServerSocketChannel unixChannel;
+
+    public NioTransport(ChatServer server, ServerConfig config) {
+        this.server = server;
+        this.config = config;
+        this.eventLoops = new NioEventLoop[config.getEventLoopThreads()];
+    }
+
+    @Override
+    public void start() throws IOException {
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new NioEventLoop(server, "chat-nio-" + i, config.getOutboundQueueCapacity());
+            eventLoops[i].start();
+        }
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(config.getPort()));
+        System.out.println("Chat Server started on port " + config.getPort()
+                + " (nio, " + eventLoops.length + " event loop(s))");
+
+        if (config.getUdsPath() != null) {
+            unixChannel = UnixDomainListener.open(config.getUdsPath());
+            Thread acceptor = new Thread(this::acceptUnixClients, "chat-uds-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        try {
+            acceptLoop(serverChannel);
+        } catch (AsynchronousCloseException e) {
+            System.out.println("NIO acceptor stopped");
+        }
+    }
+
+    private void acceptUnixClients() {
+        try {
+            acceptLoop(unixChannel);
+        } catch (ClosedChannelException e) {
+            System.out.println("Unix socket acceptor stopped");
+        } catch (IOException e) {
+            System.err.println("Unix socket acceptor error: " + e.getMessage());
+        }
+    }
+
+    private void acceptLoop(ServerSocketChannel listener) throws IOException {
+        while (true) {
+            SocketChannel channel = listener.accept();
+            channel.configureBlocking(false);
+            nextEventLoop().register(channel);
+        }
+    }
+
+    private NioEventLoop nextEventLoop() {
+        return eventLoops[Math.floorMod(nextLoop.getAndIncrement(), eventLoops.length)];
+    }
+
+    @Override
+    public void shutdown() throws IOException {
+        if (serverChannel != null) serverChannel.close();
+        UnixDomainListener.close(unixChannel, config.getUdsPath());
+        for (NioEventLoop loop : eventLoops) {
+            if (loop != null) loop.shutdown();
+        }
+    }
+}
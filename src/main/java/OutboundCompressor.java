@@ -0,0 +1,69 @@
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.Deflater;
+
+public class OutboundCompressor {
+    public static final String ALGORITHM = "DEFLATE";
+    static final String TEXT_PREFIX = "DEFLATED:";
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final int minBytes;
+    private final ServerMetrics metrics;
+    private byte[] output = new byte[8192];
+    private boolean ended;
+
+    public OutboundCompressor(int minBytes, ServerMetrics metrics) {
+        this.minBytes = minBytes;
+        this.metrics = metrics;
+    }
+
+    boolean shouldCompress(EncodedLine line, boolean binary) {
+        if (line.length() < minBytes || binary && mayExceedFrameLimit(line)) {
+            metrics.increment("compression.skipped");
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean mayExceedFrameLimit(EncodedLine line) {
+        return line.length() + (line.length() >> 10) + 64 > BinaryFrameCodec.MAX_FRAME_BYTES;
+    }
+
+    EncodedLine compress(EncodedLine line, boolean binary) {
+        long cpuStart = ThreadCost.cpuNanos();
+
+        line.deflateInto(deflater);
+        int length = 0;
+        while (true) {
+            length += deflater.deflate(output, length, output.length - length, Deflater.SYNC_FLUSH);
+            if (length < output.length) {
+                break;
+            }
+            output = Arrays.copyOf(output, output.length * 2);
+        }
+
+        EncodedLine compressed = binary
+                ? EncodedLine.frame(BinaryFrameCodec.encodeRaw(BinaryFrameCodec.Opcode.DEFLATED, output, length))
+                : EncodedLine.of(TEXT_PREFIX + Base64.getEncoder().encodeToString(Arrays.copyOf(output, length)));
+
+        metrics.increment("compression.frames");
+        metrics.add("compression.inputBytes", line.length());
+        metrics.add("compression.outputBytes", compressed.length());
+        metrics.add("compression.cpuNanos", ThreadCost.cpuNanos() - cpuStart);
+        return compressed;
+    }
+
+    void reset() {
+        deflater.reset();
+        metrics.increment("compression.resets");
+    }
+
+    boolean isEnded() {
+        return ended;
+    }
+
+    void end() {
+        ended = true;
+        deflater.end();
+    }
+}
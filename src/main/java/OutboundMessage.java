@@ -0,0 +1,100 @@
+import java.util.Arrays;
+import java.util.List;
+
+public final class OutboundMessage {
+    private final String type;
+    private final String[] fields;
+    private final String[] textFields;
+    private final long requestId;
+    private volatile EncodedLine textLine;
+    private volatile EncodedLine binaryFrame;
+
+    private OutboundMessage(String type, String[] fields, String[] textFields, long requestId) {
+        this.type = type;
+        this.fields = fields;
+        this.textFields = textFields;
+        this.requestId = requestId;
+    }
+
+    public static OutboundMessage of(String type, String... fields) {
+        return new OutboundMessage(type, fields, fields, 0);
+    }
+
+    public static OutboundMessage entries(String type, String key, List<String[]> entries) {
+        return entries(type, new String[]{key}, entries);
+    }
+
+    public static OutboundMessage entries(String type, String[] keys, List<String[]> entries) {
+        String[] fields = new String[keys.length + entries.size() * 3];
+        System.arraycopy(keys, 0, fields, 0, keys.length);
+        StringBuilder payload = new StringBuilder();
+        int i = keys.length;
+        for (String[] entry : entries) {
+            if (payload.length() > 0) payload.append("|");
+            payload.append(entry[0]).append("~").append(entry[1]).append("~").append(entry[2]);
+            fields[i++] = entry[0];
+            fields[i++] = entry[1];
+            fields[i++] = entry[2];
+        }
+        String[] textFields = Arrays.copyOf(keys, keys.length + 1);
+        textFields[keys.length] = payload.toString();
+        return new OutboundMessage(type, fields, textFields, 0);
+    }
+
+    public OutboundMessage tagged(long requestId) {
+        if (requestId == this.requestId) {
+            return this;
+        }
+        return new OutboundMessage(type, fields, textFields, requestId);
+    }
+
+    public String type() {
+        return type;
+    }
+
+    public String[] fields() {
+        return fields;
+    }
+
+    public long requestId() {
+        return requestId;
+    }
+
+    public boolean isLowPriority() {
+        return SlowConsumerPolicy.isLowPriority(type, fields);
+    }
+
+    public EncodedLine encoded(boolean binary) {
+        return binary ? binaryFrame() : textLine();
+    }
+
+    public int encodedBytes() {
+        EncodedLine text = textLine;
+        EncodedLine binary = binaryFrame;
+        return (text != null ? text.length() : 0) + (binary != null ? binary.length() : 0);
+    }
+
+    private EncodedLine textLine() {
+        EncodedLine line = textLine;
+        if (line == null) {
+            line = EncodedLine.of(toText());
+            textLine = line;
+        }
+        return line;
+    }
+
+    private EncodedLine binaryFrame() {
+        EncodedLine frame = binaryFrame;
+        if (frame == null) {
+            BinaryFrameCodec.Opcode opcode = BinaryFrameCodec.Opcode.valueOf(type);
+            frame = EncodedLine.frame(BinaryFrameCodec.encode(opcode, requestId, fields));
+            binaryFrame = frame;
+        }
+        return frame;
+    }
+
+    private String toText() {
+        String line = textFields.length == 0 ? type : type + ":" + String.join(":", textFields);
+        return requestId != 0 ? "@" + requestId + ":" + line : line;
+    }
+}
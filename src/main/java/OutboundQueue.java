@@ -0,0 +1,54 @@
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class OutboundQueue {
+    private final BlockingQueue<EncodedLine> lines;
+    private final int capacity;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public OutboundQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Outbound queue capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.lines = new LinkedBlockingQueue<>(capacity);
+    }
+
+    public boolean offer(EncodedLine line) {
+        if (lines.offer(line)) {
+            return true;
+        }
+        droppedCount.incrementAndGet();
+        return false;
+    }
+
+    public EncodedLine take() throws InterruptedException {
+        return lines.take();
+    }
+
+    public EncodedLine poll() {
+        return lines.poll();
+    }
+
+    public EncodedLine poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return lines.poll(timeout, unit);
+    }
+
+    public void clear() {
+        lines.clear();
+    }
+
+    public int depth() {
+        return lines.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long droppedCount() {
+        return droppedCount.get();
+    }
+}
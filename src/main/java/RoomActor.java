@@ -0,0 +1,42 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class RoomActor {
+    private final LocalServer server;
+    private final SerialExecutor mailbox;
+
+    public RoomActor(LocalServer server, Executor pool) {
+        this.server = server;
+        this.mailbox = new SerialExecutor(pool);
+    }
+
+    public String getServerId() {
+        return server.getServerId();
+    }
+
+    public void tell(Consumer<LocalServer> action) {
+        mailbox.execute(ClientHandler.inCurrentRequest(() -> action.accept(server)));
+    }
+
+    public <T> CompletableFuture<T> ask(Function<LocalServer, T> query) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        mailbox.execute(ClientHandler.inCurrentRequest(() -> {
+            try {
+                result.complete(query.apply(server));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }));
+        return result;
+    }
+
+    public long estimatedHistoryBytes() {
+        return server.estimatedHistoryBytes();
+    }
+
+    public int pending() {
+        return mailbox.pending();
+    }
+}
@@ -0,0 +1,92 @@
+import Message.Message;
+import db.FullTextQuery;
+import db.model.MessagePage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class SearchIndex {
+    private final long budgetBytes;
+    private final ServerMetrics metrics;
+    private final Map<String, InvertedIndex> indexes = new ConcurrentHashMap<>();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+
+    public SearchIndex(long budgetBytes, ServerMetrics metrics) {
+        this.budgetBytes = budgetBytes;
+        this.metrics = metrics;
+    }
+
+    public void index(String scope, Message message) {
+        InvertedIndex index = indexes.get(scope);
+        if (index != null) {
+            estimatedBytes.addAndGet(index.add(message));
+            enforceBudget();
+        }
+    }
+
+    public MessagePage search(String scope, String query, int limit, int offset, Supplier<List<Message>> loader) {
+        List<FullTextQuery.Term> terms = FullTextQuery.parse(query);
+        if (terms.isEmpty()) {
+            return new MessagePage(List.of(), false);
+        }
+
+        InvertedIndex index = indexes.get(scope);
+        if (index == null) {
+            InvertedIndex created = new InvertedIndex();
+            index = indexes.putIfAbsent(scope, created);
+            if (index == null) {
+                index = created;
+                try {
+                    estimatedBytes.addAndGet(created.backfill(loader.get()));
+                } catch (RuntimeException e) {
+                    indexes.remove(scope, created);
+                    estimatedBytes.addAndGet(-created.evict());
+                    throw e;
+                }
+                metrics.increment("search.index.backfills");
+            }
+        }
+        if (!index.isLoaded()) {
+            metrics.increment("search.index.fallbacks");
+            return null;
+        }
+
+        MessagePage page = index.search(terms, limit, offset);
+        metrics.increment("search.index.hits");
+        enforceBudget();
+        return page;
+    }
+
+    public long estimatedBytes() {
+        return estimatedBytes.get();
+    }
+
+    public int scopes() {
+        return indexes.size();
+    }
+
+    boolean isIndexed(String scope) {
+        return indexes.containsKey(scope);
+    }
+
+    private void enforceBudget() {
+        while (estimatedBytes.get() > budgetBytes) {
+            Map.Entry<String, InvertedIndex> coldest = null;
+            for (Map.Entry<String, InvertedIndex> entry : indexes.entrySet()) {
+                if (coldest == null || entry.getValue().lastSearchedNanos() < coldest.getValue().lastSearchedNanos()) {
+                    coldest = entry;
+                }
+            }
+            if (coldest == null) {
+                return;
+            }
+            if (indexes.remove(coldest.getKey(), coldest.getValue())) {
+                estimatedBytes.addAndGet(-coldest.getValue().evict());
+                metrics.increment("search.index.evictions");
+            }
+        }
+    }
+}
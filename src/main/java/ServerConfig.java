@@ -0,0 +1,401 @@
+import User.User;
+import db.PersistenceQueue;
+import java.util.Locale;
+
+public class ServerConfig {
+    public enum Transport {
+        THREAD_PER_CONNECTION,
+        NIO
+    }
+
+    public enum ExecutorMode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    private static final int DEFAULT_PORT = 8888;
+    private static final int DEFAULT_OUTBOUND_QUEUE_CAPACITY = 1024;
+
+    private int port;
+    private Transport transport;
+    private int eventLoopThreads;
+    private ExecutorMode executorMode;
+    private int outboundQueueCapacity;
+    private int outboundHighWaterMark;
+    private SlowConsumerPolicy.Action overflowAction;
+    private long flushDelayMillis;
+    private boolean profileBroadcasts;
+    private int requestThreads;
+    private boolean compressionEnabled;
+    private int compressionMinBytes;
+    private String udsPath;
+    private int lockStripes;
+    private int roomThreads;
+    private int shards;
+    private int persistenceCapacity;
+    private PersistenceQueue.Durability durability;
+    private int persistenceBatchRows;
+    private long persistenceBatchWindowMillis;
+    private int fanOutThreshold;
+    private int fanOutChunkSize;
+    private long searchIndexBytes;
+    private int roomHistoryCapacity;
+    private int dmCacheMessages;
+    private int dmCacheConversations;
+
+    public ServerConfig() {
+        this.port = DEFAULT_PORT;
+        this.transport = Transport.THREAD_PER_CONNECTION;
+        this.eventLoopThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        this.executorMode = ExecutorMode.PLATFORM;
+        this.outboundQueueCapacity = DEFAULT_OUTBOUND_QUEUE_CAPACITY;
+        this.outboundHighWaterMark = -1;
+        this.overflowAction = SlowConsumerPolicy.Action.DROP_LOW_PRIORITY;
+        this.flushDelayMillis = 0;
+        this.profileBroadcasts = false;
+        this.requestThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        this.compressionEnabled = true;
+        this.compressionMinBytes = 1024;
+        this.udsPath = null;
+        this.lockStripes = 64;
+        this.roomThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        this.shards = 0;
+        this.persistenceCapacity = 10_000;
+        this.durability = PersistenceQueue.Durability.ACK_AFTER_PERSIST;
+        this.persistenceBatchRows = 256;
+        this.persistenceBatchWindowMillis = 0;
+        this.fanOutThreshold = 1_000;
+        this.fanOutChunkSize = 256;
+        this.searchIndexBytes = 0;
+        this.roomHistoryCapacity = LocalServer.DEFAULT_HISTORY_CAPACITY;
+        this.dmCacheMessages = User.DEFAULT_MESSAGES_PER_CONVERSATION;
+        this.dmCacheConversations = User.DEFAULT_CACHED_CONVERSATIONS;
+    }
+
+    public static ServerConfig fromSystemProperties() {
+        ServerConfig config = new ServerConfig();
+        config.setPort(Integer.getInteger("chat.port", config.getPort()));
+        config.setTransport(parseEnum(Transport.class, System.getProperty("chat.transport"), config.getTransport()));
+        config.setEventLoopThreads(Integer.getInteger("chat.nio.threads", config.getEventLoopThreads()));
+        config.setExecutorMode(parseEnum(ExecutorMode.class, System.getProperty("chat.executor"), config.getExecutorMode()));
+        config.setOutboundQueueCapacity(Integer.getInteger("chat.outbound.capacity", config.getOutboundQueueCapacity()));
+        config.setOutboundHighWaterMark(Integer.getInteger("chat.outbound.highWater", -1));
+        config.setOverflowAction(parseEnum(SlowConsumerPolicy.Action.class,
+                System.getProperty("chat.outbound.overflowPolicy"), config.getOverflowAction()));
+        config.setFlushDelayMillis(Long.getLong("chat.outbound.flushDelayMs", config.getFlushDelayMillis()));
+        config.setProfileBroadcasts(Boolean.getBoolean("chat.metrics.profileBroadcasts"));
+        config.setRequestThreads(Integer.getInteger("chat.requests.threads", config.getRequestThreads()));
+        config.setCompressionEnabled(Boolean.parseBoolean(System.getProperty("chat.compression.enabled", "true")));
+        config.setCompressionMinBytes(Integer.getInteger("chat.compression.minBytes", config.getCompressionMinBytes()));
+        config.setUdsPath(System.getProperty("chat.uds.path", config.getUdsPath()));
+        config.setLockStripes(Integer.getInteger("chat.lockStripes", config.getLockStripes()));
+        config.setRoomThreads(Integer.getInteger("chat.rooms.threads", config.getRoomThreads()));
+        config.setShards(Integer.getInteger("chat.shards", config.getShards()));
+        config.setPersistenceCapacity(Integer.getInteger("chat.persistence.capacity", config.getPersistenceCapacity()));
+        config.setDurability(parseEnum(PersistenceQueue.Durability.class, System.getProperty("chat.persistence.durability"), config.getDurability()));
+        config.setPersistenceBatchRows(Integer.getInteger("chat.persistence.batchRows", config.getPersistenceBatchRows()));
+        config.setPersistenceBatchWindowMillis(Long.getLong("chat.persistence.batchWindowMs", config.getPersistenceBatchWindowMillis()));
+        config.setFanOutThreshold(Integer.getInteger("chat.fanout.threshold", config.getFanOutThreshold()));
+        config.setFanOutChunkSize(Integer.getInteger("chat.fanout.chunkSize", config.getFanOutChunkSize()));
+        config.setSearchIndexBytes(Long.getLong("chat.search.indexBytes", config.getSearchIndexBytes()));
+        config.setRoomHistoryCapacity(Integer.getInteger("chat.rooms.historyCapacity", config.getRoomHistoryCapacity()));
+        config.setDmCacheMessages(Integer.getInteger("chat.users.dmCacheMessages", config.getDmCacheMessages()));
+        config.setDmCacheConversations(Integer.getInteger("chat.users.dmCacheConversations", config.getDmCacheConversations()));
+        return config;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, E defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public ServerConfig setPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public ServerConfig setTransport(Transport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    public ServerConfig setEventLoopThreads(int eventLoopThreads) {
+        if (eventLoopThreads < 1) {
+            throw new IllegalArgumentException("Event loop thread count must be at least 1");
+        }
+        this.eventLoopThreads = eventLoopThreads;
+        return this;
+    }
+
+    public ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
+    public ServerConfig setExecutorMode(ExecutorMode executorMode) {
+        this.executorMode = executorMode;
+        return this;
+    }
+
+    public int getOutboundQueueCapacity() {
+        return outboundQueueCapacity;
+    }
+
+    public ServerConfig setOutboundQueueCapacity(int outboundQueueCapacity) {
+        if (outboundQueueCapacity < 1) {
+            throw new IllegalArgumentException("Outbound queue capacity must be at least 1");
+        }
+        this.outboundQueueCapacity = outboundQueueCapacity;
+        return this;
+    }
+
+    public int getOutboundHighWaterMark() {
+        if (outboundHighWaterMark < 0) {
+            return Math.max(1, outboundQueueCapacity * 3 / 4);
+        }
+        return outboundHighWaterMark;
+    }
+
+    public ServerConfig setOutboundHighWaterMark(int outboundHighWaterMark) {
+        this.outboundHighWaterMark = outboundHighWaterMark;
+        return this;
+    }
+
+    public SlowConsumerPolicy.Action getOverflowAction() {
+        return overflowAction;
+    }
+
+    public ServerConfig setOverflowAction(SlowConsumerPolicy.Action overflowAction) {
+        this.overflowAction = overflowAction;
+        return this;
+    }
+
+    public long getFlushDelayMillis() {
+        return flushDelayMillis;
+    }
+
+    public ServerConfig setFlushDelayMillis(long flushDelayMillis) {
+        if (flushDelayMillis < 0) {
+            throw new IllegalArgumentException("Flush delay cannot be negative");
+        }
+        this.flushDelayMillis = flushDelayMillis;
+        return this;
+    }
+
+    public boolean isProfileBroadcasts() {
+        return profileBroadcasts;
+    }
+
+    public ServerConfig setProfileBroadcasts(boolean profileBroadcasts) {
+        this.profileBroadcasts = profileBroadcasts;
+        return this;
+    }
+
+    public int getRequestThreads() {
+        return requestThreads;
+    }
+
+    public ServerConfig setRequestThreads(int requestThreads) {
+        if (requestThreads < 1) {
+            throw new IllegalArgumentException("Request thread count must be at least 1");
+        }
+        this.requestThreads = requestThreads;
+        return this;
+    }
+
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    public ServerConfig setCompressionEnabled(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+        return this;
+    }
+
+    public int getCompressionMinBytes() {
+        return compressionMinBytes;
+    }
+
+    public ServerConfig setCompressionMinBytes(int compressionMinBytes) {
+        if (compressionMinBytes < 0) {
+            throw new IllegalArgumentException("Compression threshold cannot be negative");
+        }
+        this.compressionMinBytes = compressionMinBytes;
+        return this;
+    }
+
+    public String getUdsPath() {
+        return udsPath;
+    }
+
+    public ServerConfig setUdsPath(String udsPath) {
+        this.udsPath = udsPath;
+        return this;
+    }
+
+    public int getLockStripes() {
+        return lockStripes;
+    }
+
+    public ServerConfig setLockStripes(int lockStripes) {
+        if (lockStripes < 1) {
+            throw new IllegalArgumentException("Lock stripe count must be at least 1");
+        }
+        this.lockStripes = lockStripes;
+        return this;
+    }
+
+    public int getRoomThreads() {
+        return roomThreads;
+    }
+
+    public ServerConfig setRoomThreads(int roomThreads) {
+        if (roomThreads < 1) {
+            throw new IllegalArgumentException("Room thread count must be at least 1");
+        }
+        this.roomThreads = roomThreads;
+        return this;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public ServerConfig setShards(int shards) {
+        if (shards < 0) {
+            throw new IllegalArgumentException("Shard count cannot be negative");
+        }
+        this.shards = shards;
+        return this;
+    }
+
+    public int getPersistenceCapacity() {
+        return persistenceCapacity;
+    }
+
+    public ServerConfig setPersistenceCapacity(int persistenceCapacity) {
+        if (persistenceCapacity < 1) {
+            throw new IllegalArgumentException("Persistence queue capacity must be at least 1");
+        }
+        this.persistenceCapacity = persistenceCapacity;
+        return this;
+    }
+
+    public PersistenceQueue.Durability getDurability() {
+        return durability;
+    }
+
+    public ServerConfig setDurability(PersistenceQueue.Durability durability) {
+        this.durability = durability;
+        return this;
+    }
+
+    public int getPersistenceBatchRows() {
+        return persistenceBatchRows;
+    }
+
+    public ServerConfig setPersistenceBatchRows(int persistenceBatchRows) {
+        if (persistenceBatchRows < 1) {
+            throw new IllegalArgumentException("Persistence batch size must be at least 1");
+        }
+        this.persistenceBatchRows = persistenceBatchRows;
+        return this;
+    }
+
+    public long getPersistenceBatchWindowMillis() {
+        return persistenceBatchWindowMillis;
+    }
+
+    public ServerConfig setPersistenceBatchWindowMillis(long persistenceBatchWindowMillis) {
+        if (persistenceBatchWindowMillis < 0) {
+            throw new IllegalArgumentException("Persistence batch window cannot be negative");
+        }
+        this.persistenceBatchWindowMillis = persistenceBatchWindowMillis;
+        return this;
+    }
+
+    public int getFanOutThreshold() {
+        return fanOutThreshold;
+    }
+
+    public ServerConfig setFanOutThreshold(int fanOutThreshold) {
+        if (fanOutThreshold < 1) {
+            throw new IllegalArgumentException("Fan-out threshold must be at least 1");
+        }
+        this.fanOutThreshold = fanOutThreshold;
+        return this;
+    }
+
+    public int getFanOutChunkSize() {
+        return fanOutChunkSize;
+    }
+
+    public ServerConfig setFanOutChunkSize(int fanOutChunkSize) {
+        if (fanOutChunkSize < 1) {
+            throw new IllegalArgumentException("Fan-out chunk size must be at least 1");
+        }
+        this.fanOutChunkSize = fanOutChunkSize;
+        return this;
+    }
+
+    public long getSearchIndexBytes() {
+        return searchIndexBytes;
+    }
+
+    public ServerConfig setSearchIndexBytes(long searchIndexBytes) {
+        if (searchIndexBytes < 0) {
+            throw new IllegalArgumentException("Search index budget must not be negative");
+        }
+        this.searchIndexBytes = searchIndexBytes;
+        return this;
+    }
+
+    public int getRoomHistoryCapacity() {
+        return roomHistoryCapacity;
+    }
+
+    public ServerConfig setRoomHistoryCapacity(int roomHistoryCapacity) {
+        if (roomHistoryCapacity < 1) {
+            throw new IllegalArgumentException("Room history capacity must be at least 1");
+        }
+        this.roomHistoryCapacity = roomHistoryCapacity;
+        return this;
+    }
+
+    public int getDmCacheMessages() {
+        return dmCacheMessages;
+    }
+
+    public ServerConfig setDmCacheMessages(int dmCacheMessages) {
+        if (dmCacheMessages < 1) {
+            throw new IllegalArgumentException("Direct message cache must hold at least 1 message per conversation");
+        }
+        this.dmCacheMessages = dmCacheMessages;
+        return this;
+    }
+
+    public int getDmCacheConversations() {
+        return dmCacheConversations;
+    }
+
+    public ServerConfig setDmCacheConversations(int dmCacheConversations) {
+        if (dmCacheConversations < 1) {
+            throw new IllegalArgumentException("Direct message cache must hold at least 1 conversation");
+        }
+        this.dmCacheConversations = dmCacheConversations;
+        return this;
+    }
+}
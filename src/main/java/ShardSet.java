@@ -0,0 +1,64 @@
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class ShardSet {
+    private final ThreadPoolExecutor[] shards;
+
+    public ShardSet(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        this.shards = new ThreadPoolExecutor[count];
+        for (int i = 0; i < count; i++) {
+            String name = "chat-shard-" + i;
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+                Thread thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public int size() {
+        return shards.length;
+    }
+
+    public int indexFor(String key) {
+        return Math.floorMod(key.hashCode(), shards.length);
+    }
+
+    public Executor executorFor(String key) {
+        return shards[indexFor(key)];
+    }
+
+    public boolean sameShard(String first, String second) {
+        return indexFor(first) == indexFor(second);
+    }
+
+    public long queued() {
+        long queued = 0;
+        for (ThreadPoolExecutor shard : shards) {
+            queued += shard.getQueue().size();
+        }
+        return queued;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    public void awaitTermination(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            for (ThreadPoolExecutor shard : shards) {
+                shard.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+public class SlowConsumerPolicy {
+    public enum Action {
+        DROP_LOW_PRIORITY,
+        NOTIFY,
+        DISCONNECT
+    }
+
+    private static final OutboundMessage OVERFLOW_MESSAGE = OutboundMessage.of("ERROR", "OUTBOUND_OVERFLOW");
+
+    private final int highWaterMark;
+    private final int lowWaterMark;
+    private final Action action;
+    private final ServerMetrics metrics;
+
+    public SlowConsumerPolicy(int highWaterMark, Action action, ServerMetrics metrics) {
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = highWaterMark / 2;
+        this.action = action;
+        this.metrics = metrics;
+    }
+
+    boolean admit(ClientHandler handler, OutboundMessage message, int depth) {
+        if (depth < highWaterMark) {
+            if (depth < lowWaterMark) {
+                handler.setOverflowing(false);
+            }
+            return true;
+        }
+
+        boolean crossed = !handler.isOverflowing();
+        if (crossed) {
+            handler.setOverflowing(true);
+            metrics.increment("outbound.highWater.crossed");
+        }
+
+        switch (action) {
+            case DISCONNECT:
+                metrics.increment("outbound.slowConsumer.disconnected");
+                handler.cleanup();
+                return false;
+            case NOTIFY:
+                if (crossed) {
+                    metrics.increment("outbound.slowConsumer.notified");
+                    handler.sendDirect(OVERFLOW_MESSAGE);
+                }
+                return true;
+            case DROP_LOW_PRIORITY:
+            default:
+                if (message.isLowPriority()) {
+                    metrics.increment("outbound.dropped.lowPriority");
+                    return false;
+                }
+                return true;
+        }
+    }
+
+    static boolean isLowPriority(String type, String[] fields) {
+        if ("STATUS".equals(type)) {
+            return true;
+        }
+        if ("SERVER_MSG".equals(type)) {
+            return fields.length >= 2 && "SYSTEM".equals(fields[1]);
+        }
+        return false;
+    }
+}
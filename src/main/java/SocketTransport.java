@@ -0,0 +1,250 @@
+import java.io.*;
+import java.net.*;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class SocketTransport implements ChatTransport {
+    private static final long SHUTDOWN_WAIT_MILLIS = 5_000;
+
+    private final ChatServer server;
+    private final ServerConfig config;
+    private final ExecutorService threadPool;
+    private final Set<SocketConnection> connections = ConcurrentHashMap.newKeySet();
+    private ServerSocket serverSocket;
+    private ServerSocketChannel unixChannel;
+
+    public SocketTransport(ChatServer server, ServerConfig config) {
+        this.server = server;
+        this.config = config;
+        this.threadPool = createExecutor(config);
+    }
+
+    private static ExecutorService createExecutor(ServerConfig config) {
+        if (config.getExecutorMode() == ServerConfig.ExecutorMode.VIRTUAL) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        return Executors.newCachedThreadPool();
+    }
+
+    @Override
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(config.getPort());
+        System.out.println("Chat Server started on port " + config.getPort() + " (thread-per-connection)");
+
+        if (config.getUdsPath() != null) {
+            unixChannel = UnixDomainListener.open(config.getUdsPath());
+            Thread acceptor = new Thread(this::acceptUnixClients, "chat-uds-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        while (true) {
+            Socket clientSocket = serverSocket.accept();
+            serve(new SocketConnection(clientSocket, server, threadPool,
+                    new OutboundQueue(config.getOutboundQueueCapacity()), config.getFlushDelayMillis()));
+        }
+    }
+
+    private void serve(SocketConnection connection) {
+        connections.add(connection);
+        threadPool.execute(() -> {
+            try {
+                connection.run();
+            } finally {
+                connections.remove(connection);
+            }
+        });
+    }
+
+    private void acceptUnixClients() {
+        try {
+            while (true) {
+                SocketChannel channel = unixChannel.accept();
+                serve(new SocketConnection(channel, server, threadPool,
+                        new OutboundQueue(config.getOutboundQueueCapacity()), config.getFlushDelayMillis()));
+            }
+        } catch (ClosedChannelException e) {
+            System.out.println("Unix socket acceptor stopped");
+        } catch (IOException e) {
+            System.err.println("Unix socket acceptor error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void shutdown() throws IOException {
+        if (serverSocket != null) serverSocket.close();
+        UnixDomainListener.close(unixChannel, config.getUdsPath());
+        for (SocketConnection connection : connections) {
+            connection.close();
+        }
+        threadPool.shutdown();
+        try {
+            threadPool.awaitTermination(SHUTDOWN_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+class SocketConnection implements ClientConnection, Runnable {
+    private static final int WRITE_BUFFER_SIZE = 8192;
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final Socket socket;
+    private final SocketChannel channel;
+    private final ChatServer server;
+    private final Executor writerExecutor;
+    private final OutboundQueue outbound;
+    private final long flushDelayNanos;
+    private final ByteArrayOutputStream lineBuffer = new ByteArrayOutputStream();
+    private InputStream in;
+    private OutputStream out;
+    private volatile Thread writerThread;
+    private volatile boolean closed;
+
+    public SocketConnection(Socket socket, ChatServer server, Executor writerExecutor,
+                            OutboundQueue outbound, long flushDelayMillis) {
+        this(socket, null, server, writerExecutor, outbound, flushDelayMillis);
+    }
+
+    public SocketConnection(SocketChannel channel, ChatServer server, Executor writerExecutor,
+                            OutboundQueue outbound, long flushDelayMillis) {
+        this(null, channel, server, writerExecutor, outbound, flushDelayMillis);
+    }
+
+    private SocketConnection(Socket socket, SocketChannel channel, ChatServer server, Executor writerExecutor,
+                             OutboundQueue outbound, long flushDelayMillis) {
+        this.socket = socket;
+        this.channel = channel;
+        this.server = server;
+        this.writerExecutor = writerExecutor;
+        this.outbound = outbound;
+        this.flushDelayNanos = TimeUnit.MILLISECONDS.toNanos(flushDelayMillis);
+    }
+
+    @Override
+    public void run() {
+        ClientHandler handler = new ClientHandler(this, server);
+        try {
+            InputStream rawIn = socket != null ? socket.getInputStream() : ChannelStreams.input(channel);
+            OutputStream rawOut = socket != null ? socket.getOutputStream() : ChannelStreams.output(channel);
+            in  = new BufferedInputStream(rawIn, READ_BUFFER_SIZE);
+            out = new BufferedOutputStream(rawOut, WRITE_BUFFER_SIZE);
+            writerExecutor.execute(this::drainOutbound);
+
+            while (!closed) {
+                if (handler.isBinary()) {
+                    BinaryFrameCodec.Frame frame = BinaryFrameCodec.readFrame(in);
+                    if (frame == null) break;
+                    handler.processFrame(frame);
+                } else {
+                    String inputLine = readLine();
+                    if (inputLine == null) break;
+                    handler.processCommand(inputLine);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Client handler error: " + e.getMessage());
+        } finally {
+            handler.cleanup();
+        }
+    }
+
+    private String readLine() throws IOException {
+        lineBuffer.reset();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                return decodeLine();
+            }
+            if (lineBuffer.size() >= MAX_LINE_BYTES) {
+                throw new IOException("Line too long: " + lineBuffer.size() + " bytes");
+            }
+            lineBuffer.write(b);
+        }
+        return lineBuffer.size() > 0 ? decodeLine() : null;
+    }
+
+    private String decodeLine() {
+        byte[] bytes = lineBuffer.toByteArray();
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void drainOutbound() {
+        writerThread = Thread.currentThread();
+        ServerMetrics metrics = server.getMetrics();
+        try {
+            while (!closed) {
+                EncodedLine line = outbound.take();
+                long deadline = System.nanoTime() + flushDelayNanos;
+                int batched = 0;
+
+                while (line != null) {
+                    line.writeTo(out);
+                    batched++;
+                    line = nextLineBefore(deadline);
+                }
+
+                out.flush();
+                metrics.increment("outbound.flushes");
+                metrics.add("outbound.linesWritten", batched);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Client write error: " + e.getMessage());
+                close();
+            }
+        } finally {
+            writerThread = null;
+        }
+    }
+
+    private EncodedLine nextLineBefore(long deadline) throws InterruptedException {
+        EncodedLine line = outbound.poll();
+        if (line != null || flushDelayNanos <= 0) {
+            return line;
+        }
+        long remaining = deadline - System.nanoTime();
+        return remaining > 0 ? outbound.poll(remaining, TimeUnit.NANOSECONDS) : null;
+    }
+
+    @Override
+    public boolean send(EncodedLine line) {
+        return !closed && outbound.offer(line);
+    }
+
+    @Override
+    public int getOutboundQueueDepth() {
+        return outbound.depth();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        outbound.clear();
+        Thread writer = writerThread;
+        if (writer != null) writer.interrupt();
+        try {
+            if (in != null) in.close();
+            if (out != null) out.close();
+            if (socket != null) socket.close();
+            if (channel != null) channel.close();
+        } catch (IOException e) {
+            System.err.println("Cleanup error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public final class UnixDomainListener {
+
+    private UnixDomainListener() {
+    }
+
+    public static ServerSocketChannel open(String path) throws IOException {
+        Path socketPath = Path.of(path);
+        Files.deleteIfExists(socketPath);
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(socketPath));
+        System.out.println("Also listening on unix socket " + socketPath);
+        return channel;
+    }
+
+    public static void close(ServerSocketChannel channel, String path) throws IOException {
+        if (channel == null) {
+            return;
+        }
+        channel.close();
+        Files.deleteIfExists(Path.of(path));
+    }
+}
@@ -2,17 +2,23 @@ package User;
 import Message.*;
 import User.State.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class User {
+    public static final int DEFAULT_MESSAGES_PER_CONVERSATION = 100;
+    public static final int DEFAULT_CACHED_CONVERSATIONS = 20;
 
     private final String userId;
     private final String username;
     private final String email;
     private final Set<String> friendIds;
-    private final Map<String, List<Message>> directMessages;
+    private final LinkedHashMap<String, ArrayDeque<Message>> directMessages;
+    private final int messagesPerConversation;
+    private final int cachedConversations;
+    private long directMessageBytes;
     private final Set<String> blockedUserIds;
-    private boolean online;
-    private UserState state;
+    private volatile boolean online;
+    private volatile UserState state;
 
     public User(
             String userId,
@@ -22,12 +28,37 @@ public class User {
             Map<String, List<Message>> directMessages,
             boolean online
     ) {
+        this(userId, username, email, friendIds, directMessages, online,
+                DEFAULT_MESSAGES_PER_CONVERSATION, DEFAULT_CACHED_CONVERSATIONS);
+    }
+
+    public User(
+            String userId,
+            String username,
+            String email,
+            Set<String> friendIds,
+            Map<String, List<Message>> directMessages,
+            boolean online,
+            int messagesPerConversation,
+            int cachedConversations
+    ) {
+        if (messagesPerConversation < 1 || cachedConversations < 1) {
+            throw new IllegalArgumentException("Direct message cache limits must be at least 1");
+        }
         this.userId = userId;
         this.username = username;
         this.email = email;
-        this.friendIds = friendIds != null ? new HashSet<>(friendIds) : new HashSet<>();
-        this.directMessages = directMessages != null ? new HashMap<>(directMessages) : new HashMap<>();
-        this.blockedUserIds = new HashSet<>();
+        this.friendIds = ConcurrentHashMap.newKeySet();
+        if (friendIds != null) {
+            this.friendIds.addAll(friendIds);
+        }
+        this.messagesPerConversation = messagesPerConversation;
+        this.cachedConversations = cachedConversations;
+        this.directMessages = new LinkedHashMap<>(16, 0.75f, true);
+        if (directMessages != null) {
+            directMessages.forEach((id, messages) -> messages.forEach(message -> addDirectMessage(id, message)));
+        }
+        this.blockedUserIds = ConcurrentHashMap.newKeySet();
         this.online = online;
 
         if (online) {
@@ -60,12 +91,41 @@ public class User {
         return friendIds.contains(userId);
     }
 
-    public void addDirectMessage(String conversationId, Message message) {
-        directMessages.computeIfAbsent(conversationId, k -> new ArrayList<>()).add(message);
+    public final void addDirectMessage(String conversationId, Message message) {
+        synchronized (directMessages) {
+            ArrayDeque<Message> messages = directMessages.computeIfAbsent(conversationId, k -> new ArrayDeque<>());
+            messages.addLast(message);
+            directMessageBytes += message.estimatedBytes();
+            if (messages.size() > messagesPerConversation) {
+                directMessageBytes -= messages.removeFirst().estimatedBytes();
+            }
+            Iterator<Map.Entry<String, ArrayDeque<Message>>> eldest = directMessages.entrySet().iterator();
+            while (directMessages.size() > cachedConversations) {
+                for (Message evicted : eldest.next().getValue()) {
+                    directMessageBytes -= evicted.estimatedBytes();
+                }
+                eldest.remove();
+            }
+        }
     }
 
     public List<Message> getDirectMessages(String conversationId) {
-        return directMessages.getOrDefault(conversationId, new ArrayList<>());
+        synchronized (directMessages) {
+            ArrayDeque<Message> messages = directMessages.get(conversationId);
+            return messages == null ? new ArrayList<>() : new ArrayList<>(messages);
+        }
+    }
+
+    public long estimatedDirectMessageBytes() {
+        synchronized (directMessages) {
+            return directMessageBytes;
+        }
+    }
+
+    public int cachedConversationCount() {
+        synchronized (directMessages) {
+            return directMessages.size();
+        }
     }
 
     public void blockUser(String targetUserId) {
@@ -13,6 +13,8 @@ public class UserBuilder {
     private Set<String> friendIds;
     private Map<String, List<Message>> directMessages;
     private boolean online;
+    private int messagesPerConversation;
+    private int cachedConversations;
 
     public UserBuilder() {
         this.userId = EMPTY_STRING;
@@ -21,6 +23,8 @@ public class UserBuilder {
         this.friendIds = new HashSet<>();
         this.directMessages = new HashMap<>();
         this.online = DEFAULT_ONLINE_STATUS;
+        this.messagesPerConversation = User.DEFAULT_MESSAGES_PER_CONVERSATION;
+        this.cachedConversations = User.DEFAULT_CACHED_CONVERSATIONS;
     }
 
     public UserBuilder setUserId(String userId) {
@@ -53,7 +57,14 @@ public class UserBuilder {
         return this;
     }
 
+    public UserBuilder setDirectMessageLimits(int messagesPerConversation, int cachedConversations) {
+        this.messagesPerConversation = messagesPerConversation;
+        this.cachedConversations = cachedConversations;
+        return this;
+    }
+
     public User build() {
-        return new User(userId, username, email, friendIds, directMessages, online);
+        return new User(userId, username, email, friendIds, directMessages, online,
+                messagesPerConversation, cachedConversations);
     }
 }
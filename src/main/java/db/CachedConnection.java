@@ -0,0 +1,80 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachedConnection {
+    private final Connection connection;
+    private final int capacity;
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    CachedConnection(Connection connection, int capacity, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Statement cache capacity must be at least 1");
+        }
+        this.connection = connection;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement cached = statements.get(sql);
+        if (cached != null) {
+            hits.incrementAndGet();
+            cached.clearParameters();
+            return cached;
+        }
+        misses.incrementAndGet();
+        PreparedStatement statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+        evictOverflow();
+        return statement;
+    }
+
+    private void evictOverflow() {
+        Iterator<PreparedStatement> eldest = statements.values().iterator();
+        while (statements.size() > capacity && eldest.hasNext()) {
+            closeQuietly(eldest.next());
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public Connection connection() {
+        return connection;
+    }
+
+    int cachedStatements() {
+        return statements.size();
+    }
+
+    void close() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing database connection: " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing statement: " + e.getMessage());
+        }
+    }
+}
@@ -4,16 +4,59 @@ import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class Database {
 
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T apply(CachedConnection connection) throws SQLException;
+    }
+
     private static Database instance;
-    private Connection connection;
 
-    private Database() {
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(Database::closeInstance, "chat-db-close"));
+    }
+
+    private final DatabaseSettings settings;
+    private final CachedConnection writer;
+    private final ReentrantLock writerLock = new ReentrantLock();
+    private final BlockingQueue<CachedConnection> readers;
+    private final List<CachedConnection> allReaders = new ArrayList<>();
+    private final AtomicInteger readersInUse = new AtomicInteger();
+    private final AtomicInteger maxReadersInUse = new AtomicInteger();
+    private final AtomicLong readerAcquired = new AtomicLong();
+    private final AtomicLong readerWaited = new AtomicLong();
+    private final AtomicLong readerWaitNanos = new AtomicLong();
+    private final AtomicLong writerAcquired = new AtomicLong();
+    private final AtomicLong writerWaited = new AtomicLong();
+    private final AtomicLong writerWaitNanos = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    private Database(DatabaseSettings settings) {
+        this.settings = settings;
+        this.readers = new ArrayBlockingQueue<>(settings.readers());
         try {
-            connection = DriverManager.getConnection("jdbc:sqlite:chat.db");
-            System.out.println("DB absolute path = " + new File("chat.db").getAbsolutePath());
+            writer = openConnection(false);
+            for (int i = 0; i < settings.readers(); i++) {
+                CachedConnection reader = openConnection(true);
+                allReaders.add(reader);
+                readers.add(reader);
+            }
+            System.out.println("DB absolute path = " + new File(settings.path()).getAbsolutePath());
 
         } catch (SQLException e) {
             throw new RuntimeException("Failed to connect SQLite", e);
@@ -22,11 +65,128 @@ public class Database {
 
     public static synchronized Database getInstance() {
         if (instance == null)
-            instance = new Database();
+            instance = new Database(DatabaseSettings.fromSystemProperties());
         return instance;
     }
 
-    public Connection getConnection() {
-        return connection;
+    public static synchronized void open(DatabaseSettings settings) {
+        closeInstance();
+        instance = new Database(settings);
+    }
+
+    private static synchronized void closeInstance() {
+        if (instance != null) {
+            instance.close();
+        }
+    }
+
+    private CachedConnection openConnection(boolean readOnly) throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + settings.path());
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + settings.busyTimeoutMillis());
+            if (!readOnly) {
+                stmt.execute("PRAGMA journal_mode = " + settings.journalMode());
+            }
+            stmt.execute("PRAGMA synchronous = " + settings.synchronous());
+            stmt.execute("PRAGMA cache_size = " + settings.cacheSize());
+            stmt.execute("PRAGMA mmap_size = " + settings.mmapSize());
+            if (readOnly) {
+                stmt.execute("PRAGMA query_only = ON");
+            }
+        }
+        return new CachedConnection(conn, settings.statementCacheSize(),
+                statementHits, statementMisses, statementEvictions);
+    }
+
+    public <T> T withReader(SqlWork<T> work) {
+        CachedConnection reader = acquireReader();
+        try {
+            return work.apply(reader);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            readersInUse.decrementAndGet();
+            readers.add(reader);
+        }
+    }
+
+    public <T> T withWriter(SqlWork<T> work) {
+        acquireWriter();
+        try {
+            return work.apply(writer);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    private CachedConnection acquireReader() {
+        CachedConnection reader = readers.poll();
+        if (reader == null) {
+            long start = System.nanoTime();
+            readerWaited.incrementAndGet();
+            try {
+                reader = readers.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for a reader connection", e);
+            }
+            readerWaitNanos.addAndGet(System.nanoTime() - start);
+        }
+        readerAcquired.incrementAndGet();
+        maxReadersInUse.accumulateAndGet(readersInUse.incrementAndGet(), Math::max);
+        return reader;
+    }
+
+    private void acquireWriter() {
+        if (!writerLock.tryLock()) {
+            long start = System.nanoTime();
+            writerWaited.incrementAndGet();
+            writerLock.lock();
+            writerWaitNanos.addAndGet(System.nanoTime() - start);
+        }
+        writerAcquired.incrementAndGet();
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new TreeMap<>();
+        stats.put("db.readers.size", (long) settings.readers());
+        stats.put("db.readers.inUse", (long) readersInUse.get());
+        stats.put("db.readers.maxInUse", (long) maxReadersInUse.get());
+        stats.put("db.readers.acquired", readerAcquired.get());
+        stats.put("db.readers.waited", readerWaited.get());
+        stats.put("db.readers.waitMicros", readerWaitNanos.get() / 1_000);
+        stats.put("db.writer.acquired", writerAcquired.get());
+        stats.put("db.writer.waited", writerWaited.get());
+        stats.put("db.writer.waitMicros", writerWaitNanos.get() / 1_000);
+        long hits = statementHits.get();
+        long lookups = hits + statementMisses.get();
+        stats.put("db.statements.hits", hits);
+        stats.put("db.statements.misses", statementMisses.get());
+        stats.put("db.statements.evictions", statementEvictions.get());
+        stats.put("db.statements.hitRatePercent", lookups == 0 ? 0 : hits * 100 / lookups);
+        return stats;
+    }
+
+    public DatabaseSettings getSettings() {
+        return settings;
+    }
+
+    private void close() {
+        for (CachedConnection reader : allReaders) {
+            reader.close();
+        }
+        try {
+            if (writerLock.tryLock(1, TimeUnit.SECONDS)) {
+                try {
+                    writer.close();
+                } finally {
+                    writerLock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -0,0 +1,57 @@
+package db;
+
+import java.util.Locale;
+import java.util.Set;
+
+public record DatabaseSettings(
+        String path,
+        int readers,
+        String journalMode,
+        String synchronous,
+        int cacheSize,
+        long mmapSize,
+        int busyTimeoutMillis,
+        int statementCacheSize
+) {
+    private static final Set<String> JOURNAL_MODES = Set.of("WAL", "DELETE", "TRUNCATE", "PERSIST", "MEMORY");
+    private static final Set<String> SYNCHRONOUS_MODES = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+
+    public DatabaseSettings {
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("Database path cannot be empty");
+        }
+        if (readers < 1) {
+            throw new IllegalArgumentException("Reader pool size must be at least 1");
+        }
+        journalMode = journalMode.toUpperCase(Locale.ROOT);
+        if (!JOURNAL_MODES.contains(journalMode)) {
+            throw new IllegalArgumentException("Unsupported journal mode: " + journalMode);
+        }
+        synchronous = synchronous.toUpperCase(Locale.ROOT);
+        if (!SYNCHRONOUS_MODES.contains(synchronous)) {
+            throw new IllegalArgumentException("Unsupported synchronous mode: " + synchronous);
+        }
+        if (mmapSize < 0) {
+            throw new IllegalArgumentException("mmap size cannot be negative");
+        }
+        if (busyTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Busy timeout cannot be negative");
+        }
+        if (statementCacheSize < 1) {
+            throw new IllegalArgumentException("Statement cache size must be at least 1");
+        }
+    }
+
+    public static DatabaseSettings fromSystemProperties() {
+        return new DatabaseSettings(
+                System.getProperty("chat.db.path", "chat.db"),
+                Integer.getInteger("chat.db.readers", 4),
+                System.getProperty("chat.db.journalMode", "WAL"),
+                System.getProperty("chat.db.synchronous", "NORMAL"),
+                Integer.getInteger("chat.db.cacheSize", -8000),
+                Long.getLong("chat.db.mmapSize", 0L),
+                Integer.getInteger("chat.db.busyTimeoutMs", 5000),
+                Integer.getInteger("chat.db.statementCacheSize", 64)
+        );
+    }
+}
@@ -0,0 +1,71 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class FullTextQuery {
+
+    public record Term(String text, boolean prefix) {
+    }
+
+    private FullTextQuery() {
+    }
+
+    public static String scopedTo(String column, String value, String expression) {
+        return column + " : " + quote(value) + " AND (" + expression + ")";
+    }
+
+    public static String toMatchExpression(String input) {
+        List<String> terms = new ArrayList<>();
+        for (Term term : parse(input)) {
+            terms.add(quote(term.text()) + (term.prefix() ? "*" : ""));
+        }
+        return String.join(" ", terms);
+    }
+
+    public static List<Term> parse(String input) {
+        List<Term> terms = new ArrayList<>();
+        int i = 0;
+        int length = input.length();
+        while (i < length) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            String text;
+            if (c == '"') {
+                int end = input.indexOf('"', i + 1);
+                if (end < 0) {
+                    end = length;
+                }
+                text = input.substring(i + 1, end);
+                i = Math.min(length, end + 1);
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(input.charAt(end)) && input.charAt(end) != '"') {
+                    end++;
+                }
+                text = input.substring(i, end);
+                i = end;
+            }
+            boolean prefix = false;
+            if (i < length && input.charAt(i) == '*') {
+                prefix = true;
+                i++;
+            }
+            while (text.endsWith("*")) {
+                prefix = true;
+                text = text.substring(0, text.length() - 1);
+            }
+            if (!text.isBlank()) {
+                terms.add(new Term(text, prefix));
+            }
+        }
+        return terms;
+    }
+
+    private static String quote(String text) {
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,13 @@
+package db;
+
+import java.util.List;
+
+public record Migration(int version, String description, List<String> statements) {
+
+    public Migration {
+        if (version < 1) {
+            throw new IllegalArgumentException("Migration version must be positive");
+        }
+        statements = List.copyOf(statements);
+    }
+}
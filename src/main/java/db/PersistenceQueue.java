@@ -0,0 +1,342 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class PersistenceQueue {
+
+    public enum Durability {
+        ACK_AFTER_PERSIST,
+        ACK_AFTER_ENQUEUE
+    }
+
+    public interface Write {
+        String sql();
+
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    private static final long DRAIN_TIMEOUT_MILLIS = 10_000;
+    private static final int LATENCY_SAMPLES = 1024;
+
+    private final BlockingQueue<PendingWrite> queue;
+    private final int maxBatchRows;
+    private final long batchWindowNanos;
+    private final Thread writer;
+    private final ReadWriteLock lifecycle = new ReentrantReadWriteLock();
+    private final AtomicLong outstanding = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong blockedEnqueues = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedRows = new AtomicLong();
+    private final AtomicLong lastLagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private final long[] commitLatencies = new long[LATENCY_SAMPLES];
+    private int commitSamples;
+    private boolean commitSamplesFilled;
+    private volatile boolean closed;
+
+    public PersistenceQueue(int capacity) {
+        this(capacity, 1, 0);
+    }
+
+    public PersistenceQueue(int capacity, int maxBatchRows, long batchWindowMillis) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Persistence queue capacity must be at least 1");
+        }
+        if (maxBatchRows < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchRows = maxBatchRows;
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, batchWindowMillis));
+        this.writer = new Thread(this::runWriter, "chat-persistence");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public CompletableFuture<Void> submit(Write write) {
+        return enqueue(new PendingWrite(write, null, System.nanoTime()));
+    }
+
+    public CompletableFuture<Void> submit(Runnable action) {
+        return enqueue(new PendingWrite(null, action, System.nanoTime()));
+    }
+
+    private CompletableFuture<Void> enqueue(PendingWrite pending) {
+        outstanding.incrementAndGet();
+        boolean queued = false;
+        lifecycle.readLock().lock();
+        try {
+            if (!closed) {
+                if (!queue.offer(pending)) {
+                    blockedEnqueues.incrementAndGet();
+                    queue.put(pending);
+                }
+                queued = true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+        if (!queued) {
+            persistAll(List.of(pending));
+        }
+        return pending.done;
+    }
+
+    public void flush() {
+        if (outstanding.get() > 0) {
+            submit(() -> {
+            }).join();
+        }
+    }
+
+    public void shutdown() {
+        lifecycle.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+        try {
+            writer.join(DRAIN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        persistAll(remaining);
+    }
+
+    private void runWriter() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchRows);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch);
+                persistAll(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                failUnfinished(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void collectBatch(List<PendingWrite> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchRows - batch.size());
+        long deadline = System.nanoTime() + batchWindowNanos;
+        while (batch.size() < maxBatchRows) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchRows - batch.size());
+        }
+    }
+
+    private synchronized void persistAll(List<PendingWrite> batch) {
+        List<PendingWrite> rows = new ArrayList<>();
+        for (PendingWrite pending : batch) {
+            if (pending.write != null) {
+                rows.add(pending);
+                continue;
+            }
+            commitRows(rows);
+            rows.clear();
+            runAction(pending);
+        }
+        commitRows(rows);
+    }
+
+    private void commitRows(List<PendingWrite> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Database.getInstance().withWriter(conn -> {
+                Connection raw = conn.connection();
+                raw.setAutoCommit(false);
+                try {
+                    executeBatches(conn, rows);
+                    raw.commit();
+                } catch (SQLException | RuntimeException e) {
+                    raw.rollback();
+                    throw e;
+                } finally {
+                    raw.setAutoCommit(true);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            if (rows.size() > 1) {
+                for (PendingWrite row : rows) {
+                    commitRows(List.of(row));
+                }
+            } else {
+                fail(rows.get(0), e);
+            }
+            return;
+        }
+
+        long now = System.nanoTime();
+        recordCommitLatency(now - start);
+        batches.incrementAndGet();
+        batchedRows.addAndGet(rows.size());
+        for (PendingWrite row : rows) {
+            complete(row, now);
+        }
+    }
+
+    private static void executeBatches(CachedConnection conn, List<PendingWrite> rows) throws SQLException {
+        int start = 0;
+        while (start < rows.size()) {
+            String sql = rows.get(start).write.sql();
+            int end = start;
+            PreparedStatement ps = conn.prepare(sql);
+            while (end < rows.size() && rows.get(end).write.sql().equals(sql)) {
+                rows.get(end).write.bind(ps);
+                ps.addBatch();
+                end++;
+            }
+            ps.executeBatch();
+            start = end;
+        }
+    }
+
+    private void runAction(PendingWrite pending) {
+        try {
+            pending.action.run();
+            complete(pending, System.nanoTime());
+        } catch (RuntimeException e) {
+            fail(pending, e);
+        }
+    }
+
+    private void complete(PendingWrite pending, long now) {
+        recordLag(now - pending.enqueuedAt);
+        persisted.incrementAndGet();
+        outstanding.decrementAndGet();
+        pending.done.complete(null);
+    }
+
+    private void fail(PendingWrite pending, Exception e) {
+        failed.incrementAndGet();
+        outstanding.decrementAndGet();
+        System.err.println("Failed to persist message: " + e.getMessage());
+        pending.done.completeExceptionally(e);
+    }
+
+    private void failUnfinished(List<PendingWrite> batch, RuntimeException e) {
+        for (PendingWrite pending : batch) {
+            if (!pending.done.isDone()) {
+                fail(pending, e);
+            }
+        }
+    }
+
+    private void recordLag(long lagNanos) {
+        lastLagNanos.set(lagNanos);
+        maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+    }
+
+    private void recordCommitLatency(long nanos) {
+        synchronized (commitLatencies) {
+            commitLatencies[commitSamples] = nanos;
+            commitSamples = (commitSamples + 1) % LATENCY_SAMPLES;
+            if (commitSamples == 0) {
+                commitSamplesFilled = true;
+            }
+        }
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    public long persisted() {
+        return persisted.get();
+    }
+
+    public long failed() {
+        return failed.get();
+    }
+
+    public long blockedEnqueues() {
+        return blockedEnqueues.get();
+    }
+
+    public long batches() {
+        return batches.get();
+    }
+
+    public long batchedRows() {
+        return batchedRows.get();
+    }
+
+    public long lastLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastLagNanos.get());
+    }
+
+    public long maxLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get());
+    }
+
+    public long oldestPendingMillis() {
+        PendingWrite oldest = queue.peek();
+        return oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.enqueuedAt);
+    }
+
+    public long commitLatencyP99Micros() {
+        long[] sorted;
+        synchronized (commitLatencies) {
+            int count = commitSamplesFilled ? LATENCY_SAMPLES : commitSamples;
+            if (count == 0) {
+                return 0;
+            }
+            sorted = Arrays.copyOf(commitLatencies, count);
+        }
+        int count = sorted.length;
+        Arrays.sort(sorted);
+        return TimeUnit.NANOSECONDS.toMicros(sorted[(int) Math.ceil(count * 0.99) - 1]);
+    }
+
+    private static final class PendingWrite {
+        final Write write;
+        final Runnable action;
+        final long enqueuedAt;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        PendingWrite(Write write, Runnable action, long enqueuedAt) {
+            this.write = write;
+            this.action = action;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -1,83 +1,278 @@
 package db;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 
 public class SchemaManager {
 
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Initial tables", List.of(
+                    """
+                    CREATE TABLE IF NOT EXISTS users (
+                        id TEXT PRIMARY KEY,
+                        username TEXT NOT NULL,
+                        email TEXT,
+                        password_hash TEXT NOT NULL,
+                        online INTEGER NOT NULL DEFAULT 0
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS friends (
+                        user_id TEXT NOT NULL,
+                        friend_id TEXT NOT NULL,
+                        PRIMARY KEY (user_id, friend_id)
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS blocked (
+                        user_id TEXT NOT NULL,
+                        blocked_id TEXT NOT NULL,
+                        PRIMARY KEY (user_id, blocked_id)
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS dm_messages (
+                        id TEXT PRIMARY KEY,
+                        conversation_id TEXT NOT NULL,
+                        sender_id TEXT NOT NULL,
+                        receiver_id TEXT NOT NULL,
+                        content TEXT NOT NULL,
+                        timestamp INTEGER NOT NULL
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS servers (
+                        id TEXT PRIMARY KEY,
+                        name TEXT NOT NULL,
+                        owner_id TEXT NOT NULL
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS server_members (
+                        server_id TEXT NOT NULL,
+                        user_id TEXT NOT NULL,
+                        PRIMARY KEY (server_id, user_id)
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS server_messages (
+                        id TEXT PRIMARY KEY,
+                        server_id TEXT NOT NULL,
+                        sender_id TEXT NOT NULL,
+                        content TEXT NOT NULL,
+                        timestamp INTEGER NOT NULL
+                    )
+                    """
+            )),
+            new Migration(2, "Indexes for history, search and reverse lookups", List.of(
+                    "CREATE INDEX IF NOT EXISTS idx_dm_messages_conversation_time ON dm_messages (conversation_id, timestamp)",
+                    "CREATE INDEX IF NOT EXISTS idx_server_messages_server_time ON server_messages (server_id, timestamp)",
+                    "CREATE INDEX IF NOT EXISTS idx_friends_friend ON friends (friend_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_blocked_blocked ON blocked (blocked_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_server_members_user ON server_members (user_id)"
+            )),
+            new Migration(3, "Full-text search over direct and server messages", List.of(
+                    "CREATE VIRTUAL TABLE IF NOT EXISTS dm_messages_fts USING fts5(content, conversation_id, content='dm_messages', content_rowid='rowid')",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS dm_messages_fts_insert AFTER INSERT ON dm_messages BEGIN
+                        INSERT INTO dm_messages_fts (rowid, content, conversation_id) VALUES (new.rowid, new.content, new.conversation_id);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS dm_messages_fts_delete AFTER DELETE ON dm_messages BEGIN
+                        INSERT INTO dm_messages_fts (dm_messages_fts, rowid, content, conversation_id) VALUES ('delete', old.rowid, old.content, old.conversation_id);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS dm_messages_fts_update AFTER UPDATE ON dm_messages BEGIN
+                        INSERT INTO dm_messages_fts (dm_messages_fts, rowid, content, conversation_id) VALUES ('delete', old.rowid, old.content, old.conversation_id);
+                        INSERT INTO dm_messages_fts (rowid, content, conversation_id) VALUES (new.rowid, new.content, new.conversation_id);
+                    END
+                    """,
+                    "INSERT INTO dm_messages_fts (dm_messages_fts, rank) VALUES ('rank', 'bm25(1.0, 0.0)')",
+                    "INSERT INTO dm_messages_fts (dm_messages_fts) VALUES ('rebuild')",
+                    "CREATE VIRTUAL TABLE IF NOT EXISTS server_messages_fts USING fts5(content, server_id, content='server_messages', content_rowid='rowid')",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS server_messages_fts_insert AFTER INSERT ON server_messages BEGIN
+                        INSERT INTO server_messages_fts (rowid, content, server_id) VALUES (new.rowid, new.content, new.server_id);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS server_messages_fts_delete AFTER DELETE ON server_messages BEGIN
+                        INSERT INTO server_messages_fts (server_messages_fts, rowid, content, server_id) VALUES ('delete', old.rowid, old.content, old.server_id);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER IF NOT EXISTS server_messages_fts_update AFTER UPDATE ON server_messages BEGIN
+                        INSERT INTO server_messages_fts (server_messages_fts, rowid, content, server_id) VALUES ('delete', old.rowid, old.content, old.server_id);
+                        INSERT INTO server_messages_fts (rowid, content, server_id) VALUES (new.rowid, new.content, new.server_id);
+                    END
+                    """,
+                    "INSERT INTO server_messages_fts (server_messages_fts, rank) VALUES ('rank', 'bm25(1.0, 0.0)')",
+                    "INSERT INTO server_messages_fts (server_messages_fts) VALUES ('rebuild')"
+            )),
+            new Migration(4, "Stable server message ids for history cursors", List.of(
+                    "UPDATE server_messages SET id = lower(hex(randomblob(16))) WHERE id IS NULL",
+                    "DROP INDEX IF EXISTS idx_server_messages_server_time",
+                    "CREATE INDEX IF NOT EXISTS idx_server_messages_server_time_id ON server_messages (server_id, timestamp, id)"
+            )),
+            new Migration(5, "Integer row keys for full-text indexes and stable direct message ids", List.of(
+                    "DROP TRIGGER IF EXISTS dm_messages_fts_insert",
+                    "DROP TRIGGER IF EXISTS dm_messages_fts_delete",
+                    "DROP TRIGGER IF EXISTS dm_messages_fts_update",
+                    "DROP TABLE IF EXISTS dm_messages_fts",
+                    """
+                    CREATE TABLE dm_messages_keyed (
+                        seq INTEGER PRIMARY KEY,
+                        id TEXT NOT NULL UNIQUE,
+                        conversation_id TEXT NOT NULL,
+                        sender_id TEXT NOT NULL,
+                        receiver_id TEXT NOT NULL,
+                        content TEXT NOT NULL,
+                        timestamp INTEGER NOT NULL
+                    )
+                    """,
+                    """
+                    INSERT INTO dm_messages_keyed (seq, id, conversation_id, sender_id, receiver_id, content, timestamp)
+                    SELECT rowid, COALESCE(id, lower(hex(randomblob(16)))), conversation_id, sender_id, receiver_id, content, timestamp
+                    FROM dm_messages ORDER BY rowid
+                    """,
+                    "DROP TABLE dm_messages",
+                    "ALTER TABLE dm_messages_keyed RENAME TO dm_messages",
+                    "CREATE INDEX IF NOT EXISTS idx_dm_messages_conversation_time_id ON dm_messages (conversation_id, timestamp, id)",
+                    "CREATE VIRTUAL TABLE dm_messages_fts USING fts5(content, conversation_id, content='dm_messages', content_rowid='seq')",
+                    """
+                    CREATE TRIGGER dm_messages_fts_insert AFTER INSERT ON dm_messages BEGIN
+                        INSERT INTO dm_messages_fts (rowid, content, conversation_id) VALUES (new.seq, new.content, new.conversation_id);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER dm_messages_fts_delete AFTER DELETE ON dm_messages BEGIN
+                        INSERT INTO dm_messages_fts (dm_messages_fts, rowid, content, conversation_id) VALUES ('delete', old.seq, old.content, old.conversation_id);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER dm_messages_fts_update AFTER UPDATE ON dm_messages BEGIN
+                        INSERT INTO dm_messages_fts (dm_messages_fts, rowid, content, conversation_id) VALUES ('delete', old.seq, old.content, old.conversation_id);
+                        INSERT INTO dm_messages_fts (rowid, content, conversation_id) VALUES (new.seq, new.content, new.conversation_id);
+                    END
+                    """,
+                    "INSERT INTO dm_messages_fts (dm_messages_fts, rank) VALUES ('rank', 'bm25(1.0, 0.0)')",
+                    "INSERT INTO dm_messages_fts (dm_messages_fts) VALUES ('rebuild')",
+                    "DROP TRIGGER IF EXISTS server_messages_fts_insert",
+                    "DROP TRIGGER IF EXISTS server_messages_fts_delete",
+                    "DROP TRIGGER IF EXISTS server_messages_fts_update",
+                    "DROP TABLE IF EXISTS server_messages_fts",
+                    """
+                    CREATE TABLE server_messages_keyed (
+                        seq INTEGER PRIMARY KEY,
+                        id TEXT NOT NULL UNIQUE,
+                        server_id TEXT NOT NULL,
+                        sender_id TEXT NOT NULL,
+                        content TEXT NOT NULL,
+                        timestamp INTEGER NOT NULL
+                    )
+                    """,
+                    """
+                    INSERT INTO server_messages_keyed (seq, id, server_id, sender_id, content, timestamp)
+                    SELECT rowid, COALESCE(id, lower(hex(randomblob(16)))), server_id, sender_id, content, timestamp
+                    FROM server_messages ORDER BY rowid
+                    """,
+                    "DROP TABLE server_messages",
+                    "ALTER TABLE server_messages_keyed RENAME TO server_messages",
+                    "CREATE INDEX IF NOT EXISTS idx_server_messages_server_time_id ON server_messages (server_id, timestamp, id)",
+                    "CREATE VIRTUAL TABLE server_messages_fts USING fts5(content, server_id, content='server_messages', content_rowid='seq')",
+                    """
+                    CREATE TRIGGER server_messages_fts_insert AFTER INSERT ON server_messages BEGIN
+                        INSERT INTO server_messages_fts (rowid, content, server_id) VALUES (new.seq, new.content, new.server_id);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER server_messages_fts_delete AFTER DELETE ON server_messages BEGIN
+                        INSERT INTO server_messages_fts (server_messages_fts, rowid, content, server_id) VALUES ('delete', old.seq, old.content, old.server_id);
+                    END
+                    """,
+                    """
+                    CREATE TRIGGER server_messages_fts_update AFTER UPDATE ON server_messages BEGIN
+                        INSERT INTO server_messages_fts (server_messages_fts, rowid, content, server_id) VALUES ('delete', old.seq, old.content, old.server_id);
+                        INSERT INTO server_messages_fts (rowid, content, server_id) VALUES (new.seq, new.content, new.server_id);
+                    END
+                    """,
+                    "INSERT INTO server_messages_fts (server_messages_fts, rank) VALUES ('rank', 'bm25(1.0, 0.0)')",
+                    "INSERT INTO server_messages_fts (server_messages_fts) VALUES ('rebuild')"
+            ))
+    );
+
     public static void initialize() {
         try {
-            Connection conn = Database.getInstance().getConnection();
-            Statement stmt = conn.createStatement();
-
-            stmt.execute("""
-            CREATE TABLE IF NOT EXISTS users (
-            id TEXT PRIMARY KEY,
-            username TEXT NOT NULL,
-            email TEXT,
-            password_hash TEXT NOT NULL,
-            online INTEGER NOT NULL DEFAULT 0
-            );
-            """);
-
-            stmt.execute("""
-            CREATE TABLE IF NOT EXISTS friends (
-            user_id TEXT NOT NULL,
-            friend_id TEXT NOT NULL,
-            PRIMARY KEY (user_id, friend_id)
-            );
-            """);
-
-            stmt.execute("""
-            CREATE TABLE IF NOT EXISTS blocked (
-            user_id TEXT NOT NULL,
-            blocked_id TEXT NOT NULL,
-            PRIMARY KEY (user_id, blocked_id)
-            );
-            """);
+            int version = Database.getInstance().withWriter(conn -> migrate(conn.connection(), MIGRATIONS));
+            System.out.println("Database schema initialized at version " + version + ".");
+        } catch (Exception e) {
+            throw new RuntimeException("Schema initialization FAILED", e);
+        }
+    }
 
-            stmt.execute("""
-            CREATE TABLE IF NOT EXISTS dm_messages (
-            id TEXT PRIMARY KEY,
-            conversation_id TEXT NOT NULL,
-            sender_id TEXT NOT NULL,
-            receiver_id TEXT NOT NULL,
-            content TEXT NOT NULL,
-            timestamp INTEGER NOT NULL
-            );
-            """);
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
 
-            stmt.execute("""
-            CREATE TABLE IF NOT EXISTS servers (
-            id TEXT PRIMARY KEY,
-            name TEXT NOT NULL,
-            owner_id TEXT NOT NULL
-            );
-            """);
+    public static int currentVersion() {
+        return Database.getInstance().withReader(conn -> readVersion(conn.connection()));
+    }
 
+    public static int migrate(Connection conn, List<Migration> migrations) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
             stmt.execute("""
-            CREATE TABLE IF NOT EXISTS server_members (
-            server_id TEXT NOT NULL,
-            user_id TEXT NOT NULL,
-            PRIMARY KEY (server_id, user_id)
-            );
-            """);
+                    CREATE TABLE IF NOT EXISTS schema_version (
+                        version INTEGER PRIMARY KEY,
+                        description TEXT NOT NULL,
+                        applied_at INTEGER NOT NULL
+                    )
+                    """);
+        }
 
-            stmt.execute("""
-            CREATE TABLE IF NOT EXISTS server_messages (
-            id TEXT PRIMARY KEY,
-            server_id TEXT NOT NULL,
-            sender_id TEXT NOT NULL,
-            content TEXT NOT NULL,
-            timestamp INTEGER NOT NULL
-            );
-            """);
+        int current = readVersion(conn);
+        for (Migration migration : migrations) {
+            if (migration.version() <= current) {
+                continue;
+            }
+            apply(conn, migration);
+            current = migration.version();
+        }
+        return current;
+    }
 
-            stmt.close();
-            System.out.println("Database schema initialized.");
+    private static int readVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Schema initialization FAILED", e);
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : migration.statements()) {
+                stmt.execute(sql);
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)")) {
+                ps.setInt(1, migration.version());
+                ps.setString(2, migration.description());
+                ps.setLong(3, System.currentTimeMillis());
+                ps.executeUpdate();
+            }
+            conn.commit();
+            System.out.println("Applied schema migration " + migration.version() + ": " + migration.description());
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
         }
     }
 }
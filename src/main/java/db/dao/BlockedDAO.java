@@ -7,52 +7,51 @@ import java.util.List;
 
 public class BlockedDAO {
 
+    public static final String BLOCK_USER_SQL = "INSERT OR IGNORE INTO blocked (user_id, blocked_id) VALUES (?, ?)";
+    public static final String UNBLOCK_USER_SQL = "DELETE FROM blocked WHERE user_id=? AND blocked_id=?";
+    public static final String IS_BLOCKED_SQL = "SELECT 1 FROM blocked WHERE user_id=? AND blocked_id=?";
+    public static final String GET_BLOCKED_USERS_SQL = "SELECT blocked_id FROM blocked WHERE user_id=?";
+
     public void blockUser(String userId, String blockedId) {
-        String sql = "INSERT OR IGNORE INTO blocked (user_id, blocked_id) VALUES (?, ?)";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        Database.getInstance().withWriter(conn -> {
+            PreparedStatement ps = conn.prepare(BLOCK_USER_SQL);
             ps.setString(1, userId);
             ps.setString(2, blockedId);
-            ps.executeUpdate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            return ps.executeUpdate();
+        });
     }
 
     public void unblockUser(String userId, String blockedId) {
-        String sql = "DELETE FROM blocked WHERE user_id=? AND blocked_id=?";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        Database.getInstance().withWriter(conn -> {
+            PreparedStatement ps = conn.prepare(UNBLOCK_USER_SQL);
             ps.setString(1, userId);
             ps.setString(2, blockedId);
-            ps.executeUpdate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            return ps.executeUpdate();
+        });
     }
 
     public boolean isBlocked(String userId, String otherId) {
-        String sql = "SELECT 1 FROM blocked WHERE user_id=? AND blocked_id=?";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        return Database.getInstance().withReader(conn -> {
+            PreparedStatement ps = conn.prepare(IS_BLOCKED_SQL);
             ps.setString(1, userId);
             ps.setString(2, otherId);
-            ResultSet rs = ps.executeQuery();
-            return rs.next();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        });
     }
 
     public List<String> getBlockedUsers(String userId) {
-        List<String> result = new ArrayList<>();
-        String sql = "SELECT blocked_id FROM blocked WHERE user_id=?";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        return Database.getInstance().withReader(conn -> {
+            List<String> result = new ArrayList<>();
+            PreparedStatement ps = conn.prepare(GET_BLOCKED_USERS_SQL);
             ps.setString(1, userId);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                result.add(rs.getString("blocked_id"));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(rs.getString("blocked_id"));
+                }
             }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        return result;
+            return result;
+        });
     }
 }
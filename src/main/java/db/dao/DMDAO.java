@@ -2,101 +2,187 @@ package db.dao;
 
 import Message.Message;
 import db.Database;
+import db.FullTextQuery;
+import db.PersistenceQueue;
+import db.model.MessagePage;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
 public class DMDAO {
 
+    public static final String INSERT_SQL = """
+            INSERT INTO dm_messages
+            (id, conversation_id, sender_id, receiver_id, content, timestamp)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+    public static final String GET_MESSAGES_SQL = """
+            SELECT id, sender_id, receiver_id, content, timestamp
+            FROM dm_messages
+            WHERE conversation_id = ?
+            ORDER BY timestamp ASC, id ASC
+            """;
+    public static final String PAGE_BEFORE_SQL = """
+            SELECT id, sender_id, receiver_id, content, timestamp
+            FROM dm_messages
+            WHERE conversation_id = ?
+            AND (timestamp, id) < (?, ?)
+            ORDER BY timestamp DESC, id DESC
+            LIMIT ?
+            """;
+    public static final String PAGE_AFTER_SQL = """
+            SELECT id, sender_id, receiver_id, content, timestamp
+            FROM dm_messages
+            WHERE conversation_id = ?
+            AND (timestamp, id) > (?, ?)
+            ORDER BY timestamp ASC, id ASC
+            LIMIT ?
+            """;
+    public static final String SEARCH_MESSAGES_SQL = """
+            SELECT m.id, m.sender_id, m.receiver_id, m.content, m.timestamp
+            FROM dm_messages_fts
+            JOIN dm_messages m ON m.seq = dm_messages_fts.rowid
+            WHERE dm_messages_fts MATCH ?
+            AND m.conversation_id = ?
+            ORDER BY dm_messages_fts.rank
+            LIMIT ? OFFSET ?
+            """;
+
     public void saveMessage(String conversationId, String senderId, String receiverId, String content, long timestamp) {
-        String sql = """
-    INSERT INTO dm_messages
-    (conversation_id, sender_id, receiver_id, content, timestamp)
-    VALUES (?, ?, ?, ?, ?)
-    """;
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
-            ps.setString(1, conversationId);
-            ps.setString(2, senderId);
-            ps.setString(3, receiverId);
-            ps.setString(4, content);
-            ps.setLong(5, timestamp);
-            ps.executeUpdate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        saveMessage(UUID.randomUUID().toString(), conversationId, senderId, receiverId, content, timestamp);
+    }
+
+    public void saveMessage(String id, String conversationId, String senderId, String receiverId,
+                            String content, long timestamp) {
+        Database.getInstance().withWriter(conn -> {
+            PreparedStatement ps = conn.prepare(INSERT_SQL);
+            row(id, conversationId, senderId, receiverId, content, timestamp).bind(ps);
+            return ps.executeUpdate();
+        });
+    }
+
+    public static PersistenceQueue.Write row(String id, String conversationId, String senderId, String receiverId,
+                                             String content, long timestamp) {
+        return new MessageRow(id, conversationId, senderId, receiverId, content, timestamp);
+    }
+
+    private record MessageRow(String id, String conversationId, String senderId, String receiverId,
+                              String content, long timestamp) implements PersistenceQueue.Write {
+        @Override
+        public String sql() {
+            return INSERT_SQL;
+        }
+
+        @Override
+        public void bind(PreparedStatement ps) throws SQLException {
+            ps.setString(1, id);
+            ps.setString(2, conversationId);
+            ps.setString(3, senderId);
+            ps.setString(4, receiverId);
+            ps.setString(5, content);
+            ps.setLong(6, timestamp);
         }
     }
 
     public List<Message> getMessages(String userId, String friendId) {
-        List<Message> messages = new ArrayList<>();
         String conv = userId.compareTo(friendId) < 0 ?
                 userId + "_" + friendId :
                 friendId + "_" + userId;
 
-        String sql = """
-    SELECT sender_id, receiver_id, content, timestamp
-    FROM dm_messages
-    WHERE conversation_id = ?
-    ORDER BY timestamp ASC
-    """;
-
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        return Database.getInstance().withReader(conn -> {
+            List<Message> messages = new ArrayList<>();
+            PreparedStatement ps = conn.prepare(GET_MESSAGES_SQL);
             ps.setString(1, conv);
-            ResultSet rs = ps.executeQuery();
-
-            while (rs.next()) {
-                Message msg = new Message(
-                        java.util.UUID.randomUUID().toString(),
-                        rs.getString("sender_id"),
-                        rs.getString("receiver_id"),
-                        rs.getString("content"),
-                        Message.MessageType.DIRECT_MESSAGE,
-                        rs.getLong("timestamp")
-                );
-                messages.add(msg);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Message msg = new Message(
+                            rs.getString("id"),
+                            rs.getString("sender_id"),
+                            rs.getString("receiver_id"),
+                            rs.getString("content"),
+                            Message.MessageType.DIRECT_MESSAGE,
+                            rs.getLong("timestamp")
+                    );
+                    messages.add(msg);
+                }
             }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-
-        return messages;
+            return messages;
+        });
     }
 
-    public List<Message> searchMessages(String userId, String friendId, String keyword) {
-        List<Message> messages = new ArrayList<>();
-
+    public MessagePage getPage(String userId, String friendId, boolean before,
+                               long cursorTimestamp, String cursorId, int limit) {
         String conv = userId.compareTo(friendId) < 0
                 ? userId + "_" + friendId
                 : friendId + "_" + userId;
 
-        String sql = """
-    SELECT sender_id, receiver_id, content, timestamp
-    FROM dm_messages
-    WHERE conversation_id = ?
-    AND content LIKE ?
-    ORDER BY timestamp ASC
-    """;
-
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        return Database.getInstance().withReader(conn -> {
+            List<Message> messages = new ArrayList<>();
+            PreparedStatement ps = conn.prepare(before ? PAGE_BEFORE_SQL : PAGE_AFTER_SQL);
             ps.setString(1, conv);
-            ps.setString(2, "%" + keyword + "%");
-
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                messages.add(new Message(
-                        UUID.randomUUID().toString(),
-                        rs.getString("sender_id"),
-                        rs.getString("receiver_id"),
-                        rs.getString("content"),
-                        Message.MessageType.DIRECT_MESSAGE,
-                        rs.getLong("timestamp")
-                ));
+            ps.setLong(2, cursorTimestamp);
+            ps.setString(3, cursorId);
+            ps.setInt(4, limit + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    messages.add(new Message(
+                            rs.getString("id"),
+                            rs.getString("sender_id"),
+                            rs.getString("receiver_id"),
+                            rs.getString("content"),
+                            Message.MessageType.DIRECT_MESSAGE,
+                            rs.getLong("timestamp")
+                    ));
+                }
+            }
+            boolean hasMore = messages.size() > limit;
+            if (hasMore) {
+                messages.remove(messages.size() - 1);
+            }
+            if (before) {
+                Collections.reverse(messages);
             }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            return new MessagePage(messages, hasMore);
+        });
+    }
+
+    public MessagePage searchMessages(String userId, String friendId, String query, int limit, int offset) {
+        String conv = userId.compareTo(friendId) < 0
+                ? userId + "_" + friendId
+                : friendId + "_" + userId;
+        String expression = FullTextQuery.toMatchExpression(query);
+        if (expression.isEmpty()) {
+            return new MessagePage(List.of(), false);
         }
 
-        return messages;
-    }
+        return Database.getInstance().withReader(conn -> {
+            List<Message> messages = new ArrayList<>();
+            PreparedStatement ps = conn.prepare(SEARCH_MESSAGES_SQL);
+            ps.setString(1, FullTextQuery.scopedTo("conversation_id", conv, expression));
+            ps.setString(2, conv);
+            ps.setInt(3, limit + 1);
+            ps.setInt(4, offset);
 
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    messages.add(new Message(
+                            rs.getString("id"),
+                            rs.getString("sender_id"),
+                            rs.getString("receiver_id"),
+                            rs.getString("content"),
+                            Message.MessageType.DIRECT_MESSAGE,
+                            rs.getLong("timestamp")
+                    ));
+                }
+            }
+            boolean hasMore = messages.size() > limit;
+            if (hasMore) {
+                messages.remove(messages.size() - 1);
+            }
+            return new MessagePage(messages, hasMore);
+        });
+    }
 }
@@ -7,41 +7,41 @@ import java.util.List;
 
 public class FriendDAO {
 
+    public static final String ADD_FRIENDSHIP_SQL = "INSERT OR IGNORE INTO friends (user_id, friend_id) VALUES (?, ?)";
+    public static final String ARE_FRIENDS_SQL = "SELECT 1 FROM friends WHERE user_id=? AND friend_id=?";
+    public static final String GET_FRIENDS_SQL = "SELECT friend_id FROM friends WHERE user_id=?";
+
     public void addFriendship(String userId, String friendId) {
-        String sql = "INSERT OR IGNORE INTO friends (user_id, friend_id) VALUES (?, ?)";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        Database.getInstance().withWriter(conn -> {
+            PreparedStatement ps = conn.prepare(ADD_FRIENDSHIP_SQL);
             ps.setString(1, userId);
             ps.setString(2, friendId);
-            ps.executeUpdate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            return ps.executeUpdate();
+        });
     }
 
     public boolean areFriends(String userA, String userB) {
-        String sql = "SELECT 1 FROM friends WHERE user_id=? AND friend_id=?";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        return Database.getInstance().withReader(conn -> {
+            PreparedStatement ps = conn.prepare(ARE_FRIENDS_SQL);
             ps.setString(1, userA);
             ps.setString(2, userB);
-            ResultSet rs = ps.executeQuery();
-            return rs.next();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        });
     }
 
     public List<String> getFriends(String userId) {
-        List<String> result = new ArrayList<>();
-        String sql = "SELECT friend_id FROM friends WHERE user_id=?";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        return Database.getInstance().withReader(conn -> {
+            List<String> result = new ArrayList<>();
+            PreparedStatement ps = conn.prepare(GET_FRIENDS_SQL);
             ps.setString(1, userId);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                result.add(rs.getString("friend_id"));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(rs.getString("friend_id"));
+                }
             }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        return result;
+            return result;
+        });
     }
 }
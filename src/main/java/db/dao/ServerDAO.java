@@ -1,83 +1,96 @@
 package db.dao;
 
 import db.Database;
+import db.model.DbServer;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class ServerDAO {
 
+    public static final String EXISTS_SQL = "SELECT 1 FROM servers WHERE id=?";
+    public static final String GET_SERVER_SQL = "SELECT id, name, owner_id FROM servers WHERE id=?";
+    public static final String CREATE_SERVER_SQL = "INSERT OR IGNORE INTO servers (id, name, owner_id) VALUES (?, ?, ?)";
+    public static final String ADD_MEMBER_SQL = "INSERT OR IGNORE INTO server_members (server_id, user_id) VALUES (?, ?)";
+    public static final String REMOVE_MEMBER_SQL = "DELETE FROM server_members WHERE server_id=? AND user_id=?";
+    public static final String GET_MEMBERS_SQL = "SELECT user_id FROM server_members WHERE server_id=?";
+    public static final String LIST_SERVERS_SQL = "SELECT id, name FROM servers";
+
     public boolean exists(String serverId) {
-        String sql = "SELECT 1 FROM servers WHERE id=?";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        return Database.getInstance().withReader(conn -> {
+            PreparedStatement ps = conn.prepare(EXISTS_SQL);
+            ps.setString(1, serverId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        });
+    }
+
+    public DbServer getServer(String serverId) {
+        return Database.getInstance().withReader(conn -> {
+            PreparedStatement ps = conn.prepare(GET_SERVER_SQL);
             ps.setString(1, serverId);
-            ResultSet rs = ps.executeQuery();
-            return rs.next();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new DbServer(rs.getString("id"), rs.getString("name"), rs.getString("owner_id"));
+                }
+                return null;
+            }
+        });
     }
 
     public void createServer(String id, String name, String ownerId) {
-        String sql = "INSERT OR IGNORE INTO servers (id, name, owner_id) VALUES (?, ?, ?)";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        Database.getInstance().withWriter(conn -> {
+            PreparedStatement ps = conn.prepare(CREATE_SERVER_SQL);
             ps.setString(1, id);
             ps.setString(2, name);
             ps.setString(3, ownerId);
-            ps.executeUpdate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            return ps.executeUpdate();
+        });
     }
 
     public void addMember(String serverId, String userId) {
-        String sql = "INSERT OR IGNORE INTO server_members (server_id, user_id) VALUES (?, ?)";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        Database.getInstance().withWriter(conn -> {
+            PreparedStatement ps = conn.prepare(ADD_MEMBER_SQL);
             ps.setString(1, serverId);
             ps.setString(2, userId);
-            ps.executeUpdate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            return ps.executeUpdate();
+        });
     }
 
     public void removeMember(String serverId, String userId) {
-        String sql = "DELETE FROM server_members WHERE server_id=? AND user_id=?";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        Database.getInstance().withWriter(conn -> {
+            PreparedStatement ps = conn.prepare(REMOVE_MEMBER_SQL);
             ps.setString(1, serverId);
             ps.setString(2, userId);
-            ps.executeUpdate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            return ps.executeUpdate();
+        });
     }
 
     public List<String> getMembers(String serverId) {
-        List<String> members = new ArrayList<>();
-        String sql = "SELECT user_id FROM server_members WHERE server_id=?";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        return Database.getInstance().withReader(conn -> {
+            List<String> members = new ArrayList<>();
+            PreparedStatement ps = conn.prepare(GET_MEMBERS_SQL);
             ps.setString(1, serverId);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                members.add(rs.getString("user_id"));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    members.add(rs.getString("user_id"));
+                }
             }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        return members;
+            return members;
+        });
     }
 
     public List<String> listServers() {
-        List<String> servers = new ArrayList<>();
-        String sql = "SELECT id, name FROM servers";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                servers.add(rs.getString("id") + ":" + rs.getString("name"));
+        return Database.getInstance().withReader(conn -> {
+            List<String> servers = new ArrayList<>();
+            PreparedStatement ps = conn.prepare(LIST_SERVERS_SQL);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    servers.add(rs.getString("id") + ":" + rs.getString("name"));
+                }
             }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        return servers;
+            return servers;
+        });
     }
 }
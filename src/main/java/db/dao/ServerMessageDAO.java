@@ -1,25 +1,172 @@
 package db.dao;
 
+import Message.Message;
 import db.Database;
+import db.FullTextQuery;
+import db.PersistenceQueue;
+import db.model.MessagePage;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
 
 public class ServerMessageDAO {
 
+    public static final String INSERT_SQL = """
+            INSERT INTO server_messages
+            (id, server_id, sender_id, content, timestamp)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+    public static final String GET_MESSAGES_SQL = """
+            SELECT id, sender_id, content, timestamp
+            FROM server_messages
+            WHERE server_id = ?
+            ORDER BY timestamp ASC, id ASC
+            """;
+    public static final String PAGE_BEFORE_SQL = """
+            SELECT id, sender_id, content, timestamp
+            FROM server_messages
+            WHERE server_id = ?
+            AND (timestamp, id) < (?, ?)
+            ORDER BY timestamp DESC, id DESC
+            LIMIT ?
+            """;
+    public static final String PAGE_AFTER_SQL = """
+            SELECT id, sender_id, content, timestamp
+            FROM server_messages
+            WHERE server_id = ?
+            AND (timestamp, id) > (?, ?)
+            ORDER BY timestamp ASC, id ASC
+            LIMIT ?
+            """;
+    public static final String SEARCH_MESSAGES_SQL = """
+            SELECT m.id, m.sender_id, m.content, m.timestamp
+            FROM server_messages_fts
+            JOIN server_messages m ON m.seq = server_messages_fts.rowid
+            WHERE server_messages_fts MATCH ?
+            AND m.server_id = ?
+            ORDER BY server_messages_fts.rank
+            LIMIT ? OFFSET ?
+            """;
+
     public void saveMessage(String serverId, String senderId, String content, long timestamp) {
-        String sql = """
-        INSERT INTO server_messages
-        (server_id, sender_id, content, timestamp)
-        VALUES (?, ?, ?, ?)
-        """;
+        saveMessage(UUID.randomUUID().toString(), serverId, senderId, content, timestamp);
+    }
+
+    public void saveMessage(String id, String serverId, String senderId, String content, long timestamp) {
+        Database.getInstance().withWriter(conn -> {
+            PreparedStatement ps = conn.prepare(INSERT_SQL);
+            row(id, serverId, senderId, content, timestamp).bind(ps);
+            return ps.executeUpdate();
+        });
+    }
+
+    public static PersistenceQueue.Write row(String id, String serverId, String senderId, String content, long timestamp) {
+        return new MessageRow(id, serverId, senderId, content, timestamp);
+    }
+
+    private record MessageRow(String id, String serverId, String senderId, String content, long timestamp)
+            implements PersistenceQueue.Write {
+        @Override
+        public String sql() {
+            return INSERT_SQL;
+        }
 
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        @Override
+        public void bind(PreparedStatement ps) throws SQLException {
+            ps.setString(1, id);
+            ps.setString(2, serverId);
+            ps.setString(3, senderId);
+            ps.setString(4, content);
+            ps.setLong(5, timestamp);
+        }
+    }
+
+    public List<Message> getMessages(String serverId) {
+        return Database.getInstance().withReader(conn -> {
+            List<Message> messages = new ArrayList<>();
+            PreparedStatement ps = conn.prepare(GET_MESSAGES_SQL);
             ps.setString(1, serverId);
-            ps.setString(2, senderId);
-            ps.setString(3, content);
-            ps.setLong(4, timestamp);
-            ps.executeUpdate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    messages.add(new Message(
+                            rs.getString("id"),
+                            rs.getString("sender_id"),
+                            serverId,
+                            rs.getString("content"),
+                            Message.MessageType.SERVER_MESSAGE,
+                            rs.getLong("timestamp")
+                    ));
+                }
+            }
+            return messages;
+        });
+    }
+
+    public MessagePage getPage(String serverId, boolean before, long cursorTimestamp, String cursorId, int limit) {
+        return Database.getInstance().withReader(conn -> {
+            List<Message> messages = new ArrayList<>();
+            PreparedStatement ps = conn.prepare(before ? PAGE_BEFORE_SQL : PAGE_AFTER_SQL);
+            ps.setString(1, serverId);
+            ps.setLong(2, cursorTimestamp);
+            ps.setString(3, cursorId);
+            ps.setInt(4, limit + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    messages.add(new Message(
+                            rs.getString("id"),
+                            rs.getString("sender_id"),
+                            serverId,
+                            rs.getString("content"),
+                            Message.MessageType.SERVER_MESSAGE,
+                            rs.getLong("timestamp")
+                    ));
+                }
+            }
+            boolean hasMore = messages.size() > limit;
+            if (hasMore) {
+                messages.remove(messages.size() - 1);
+            }
+            if (before) {
+                Collections.reverse(messages);
+            }
+            return new MessagePage(messages, hasMore);
+        });
+    }
+
+    public MessagePage searchMessages(String serverId, String query, int limit, int offset) {
+        String expression = FullTextQuery.toMatchExpression(query);
+        if (expression.isEmpty()) {
+            return new MessagePage(List.of(), false);
         }
+
+        return Database.getInstance().withReader(conn -> {
+            List<Message> messages = new ArrayList<>();
+            PreparedStatement ps = conn.prepare(SEARCH_MESSAGES_SQL);
+            ps.setString(1, FullTextQuery.scopedTo("server_id", serverId, expression));
+            ps.setString(2, serverId);
+            ps.setInt(3, limit + 1);
+            ps.setInt(4, offset);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    messages.add(new Message(
+                            rs.getString("id"),
+                            rs.getString("sender_id"),
+                            serverId,
+                            rs.getString("content"),
+                            Message.MessageType.SERVER_MESSAGE,
+                            rs.getLong("timestamp")
+                    ));
+                }
+            }
+            boolean hasMore = messages.size() > limit;
+            if (hasMore) {
+                messages.remove(messages.size() - 1);
+            }
+            return new MessagePage(messages, hasMore);
+        });
     }
 }
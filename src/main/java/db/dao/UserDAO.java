@@ -6,74 +6,72 @@ import java.sql.*;
 
 public class UserDAO {
 
+    public static final String EXISTS_SQL = "SELECT 1 FROM users WHERE id = ?";
+    public static final String CREATE_USER_SQL = "INSERT OR IGNORE INTO users (id, username, email, password_hash, online) VALUES (?, ?, ?, ?, 0)";
+    public static final String GET_USER_BY_ID_SQL = "SELECT id, username, email FROM users WHERE id = ?";
+    public static final String GET_PASSWORD_HASH_SQL = "SELECT password_hash FROM users WHERE id = ?";
+    public static final String SET_ONLINE_SQL = "UPDATE users SET online = ? WHERE id = ?";
+
     public boolean exists(String userId) {
-        String sql = "SELECT 1 FROM users WHERE id = ?";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        return Database.getInstance().withReader(conn -> {
+            PreparedStatement ps = conn.prepare(EXISTS_SQL);
             ps.setString(1, userId);
-            ResultSet rs = ps.executeQuery();
-            return rs.next();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        });
     }
 
     public void createUser(String id, String username, String email) {
-
         createUser(id, username, email, "NO_PASSWORD_SET");
     }
 
     public void createUser(String id, String username, String email, String passwordHash) {
-        String sql = "INSERT OR IGNORE INTO users (id, username, email, password_hash, online) VALUES (?, ?, ?, ?, 0)";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        Database.getInstance().withWriter(conn -> {
+            PreparedStatement ps = conn.prepare(CREATE_USER_SQL);
             ps.setString(1, id);
             ps.setString(2, username);
             ps.setString(3, email);
             ps.setString(4, passwordHash);
-            ps.executeUpdate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            return ps.executeUpdate();
+        });
     }
 
     public DbUser getUserById(String userId) {
-        String sql = "SELECT id, username, email FROM users WHERE id = ?";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        return Database.getInstance().withReader(conn -> {
+            PreparedStatement ps = conn.prepare(GET_USER_BY_ID_SQL);
             ps.setString(1, userId);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                return new DbUser(
-                        rs.getString("id"),
-                        rs.getString("username"),
-                        rs.getString("email"));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new DbUser(
+                            rs.getString("id"),
+                            rs.getString("username"),
+                            rs.getString("email"));
+                }
+                return null;
             }
-            return null;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        });
     }
 
     public String getPasswordHash(String userId) {
-        String sql = "SELECT password_hash FROM users WHERE id = ?";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        return Database.getInstance().withReader(conn -> {
+            PreparedStatement ps = conn.prepare(GET_PASSWORD_HASH_SQL);
             ps.setString(1, userId);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                return rs.getString("password_hash");
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getString("password_hash");
+                }
+                return null;
             }
-            return null;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        });
     }
 
     public void setOnline(String userId, boolean online) {
-        String sql = "UPDATE users SET online = ? WHERE id = ?";
-        try (PreparedStatement ps = Database.getInstance().getConnection().prepareStatement(sql)) {
+        Database.getInstance().withWriter(conn -> {
+            PreparedStatement ps = conn.prepare(SET_ONLINE_SQL);
             ps.setInt(1, online ? 1 : 0);
             ps.setString(2, userId);
-            ps.executeUpdate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            return ps.executeUpdate();
+        });
     }
 }
@@ -0,0 +1,17 @@
+package db.model;
+
+public class DbServer {
+    private final String id;
+    private final String name;
+    private final String ownerId;
+
+    public DbServer(String id, String name, String ownerId) {
+        this.id = id;
+        this.name = name;
+        this.ownerId = ownerId;
+    }
+
+    public String id() { return id; }
+    public String name() { return name; }
+    public String ownerId() { return ownerId; }
+}
@@ -0,0 +1,31 @@
+package db.model;
+
+import Message.Message;
+
+import java.util.List;
+
+public record MessagePage(List<Message> messages, boolean hasMore) {
+
+    public record Cursor(long timestamp, String id) {
+
+        public static Cursor parse(String cursor) {
+            int dot = cursor.indexOf('.');
+            if (dot < 0 || dot == cursor.length() - 1) {
+                throw new IllegalArgumentException("Cursor must be <timestamp>.<id>: " + cursor);
+            }
+            return new Cursor(Long.parseLong(cursor.substring(0, dot)), cursor.substring(dot + 1));
+        }
+    }
+
+    public static String cursorOf(Message message) {
+        return message.getTimestamp() + "." + message.getId();
+    }
+
+    public String olderCursor() {
+        return messages.isEmpty() ? "" : cursorOf(messages.get(0));
+    }
+
+    public String newerCursor() {
+        return messages.isEmpty() ? "" : cursorOf(messages.get(messages.size() - 1));
+    }
+}
@@ -0,0 +1,158 @@
+import db.SchemaManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BinaryFrameCodecTest {
+
+    @Test
+    void encodedFrameShouldDecodeToSameOpcodeAndFields() throws Exception {
+        byte[] frame = BinaryFrameCodec.encode(BinaryFrameCodec.Opcode.SEND_DM, "u2", "hi: there | ~ ünïcode");
+        BinaryFrameCodec.Frame decoded = BinaryFrameCodec.decode(frame, 0, frame.length);
+        boolean roundTrip = decoded.opcode() == BinaryFrameCodec.Opcode.SEND_DM
+                && Arrays.equals(new String[]{"u2", "hi: there | ~ ünïcode"}, decoded.fields());
+        assertEquals(true, roundTrip);
+    }
+
+    @Test
+    void readFrameShouldReadConsecutiveFramesFromStream() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryFrameCodec.write(bytes, BinaryFrameCodec.Opcode.GET_FRIENDS);
+        BinaryFrameCodec.write(bytes, BinaryFrameCodec.Opcode.LOGIN, "u1", "x".repeat(300));
+        InputStream in = new ByteArrayInputStream(bytes.toByteArray());
+
+        BinaryFrameCodec.Frame first = BinaryFrameCodec.readFrame(in);
+        BinaryFrameCodec.Frame second = BinaryFrameCodec.readFrame(in);
+        BinaryFrameCodec.Frame end = BinaryFrameCodec.readFrame(in);
+
+        boolean expected = first.opcode() == BinaryFrameCodec.Opcode.GET_FRIENDS
+                && first.fields().length == 0
+                && second.fields()[1].length() == 300
+                && end == null;
+        assertEquals(true, expected);
+    }
+
+    @Test
+    void completeFrameLengthShouldWaitForWholeFrame() throws Exception {
+        byte[] frame = BinaryFrameCodec.encode(BinaryFrameCodec.Opcode.SERVER_MSG, "general", "hello");
+        boolean partial = BinaryFrameCodec.completeFrameLength(frame, 0, frame.length - 1) == -1
+                && BinaryFrameCodec.completeFrameLength(frame, 0, 0) == -1;
+        boolean complete = BinaryFrameCodec.completeFrameLength(frame, 0, frame.length) == frame.length;
+        assertEquals(true, partial && complete);
+    }
+
+    @Test
+    void oversizedFrameLengthShouldBeRejected() {
+        byte[] header = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F};
+        boolean rejected;
+        try {
+            BinaryFrameCodec.completeFrameLength(header, 0, header.length);
+            rejected = false;
+        } catch (IOException e) {
+            rejected = true;
+        }
+        assertEquals(true, rejected);
+    }
+
+    @Test
+    void historyEntriesShouldKeepTextEncodingAndFlattenBinaryFields() throws Exception {
+        List<String[]> entries = List.of(
+                new String[]{"12:00", "Alice", "a|b"},
+                new String[]{"12:01", "Bob", "c"});
+        OutboundMessage message = OutboundMessage.entries("HISTORY", "u2", entries);
+
+        EncodedLine binary = message.encoded(true);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        binary.writeTo(bytes);
+        BinaryFrameCodec.Frame frame = BinaryFrameCodec.readFrame(new ByteArrayInputStream(bytes.toByteArray()));
+
+        boolean expected = "HISTORY:u2:12:00~Alice~a|b|12:01~Bob~c".equals(message.encoded(false).text())
+                && frame.fields().length == 7
+                && "a|b".equals(frame.fields()[3]);
+        assertEquals(true, expected);
+    }
+
+    @Test
+    void oversizedBinaryReplyShouldBecomeAnErrorFrame() throws Exception {
+        SchemaManager.initialize();
+        ChatServer server = new ChatServer(new ServerConfig().setPort(0));
+        List<EncodedLine> sent = new ArrayList<>();
+        ClientHandler handler = new ClientHandler(recordingConnection(sent), server);
+        handler.processCommand("PROTOCOL:BINARY");
+
+        String huge = "x".repeat(BinaryFrameCodec.MAX_FRAME_BYTES + 1);
+        handler.sendDirect(OutboundMessage.of("FRIENDS", huge).tagged(9));
+
+        BinaryFrameCodec.Frame reply = lastFrame(sent);
+        boolean expected = reply.opcode() == BinaryFrameCodec.Opcode.ERROR
+                && reply.requestId() == 9
+                && Arrays.equals(new String[]{"REPLY_TOO_LARGE"}, reply.fields())
+                && server.getMetrics().get("outbound.dropped.tooLarge") == 1;
+        assertEquals(true, expected);
+        server.shutdown();
+    }
+
+    @Test
+    void nearLimitReplyShouldSkipCompressionAndKeepTheStreamIntact() throws Exception {
+        SchemaManager.initialize();
+        ChatServer server = new ChatServer(new ServerConfig().setPort(0));
+        List<EncodedLine> sent = new ArrayList<>();
+        ClientHandler handler = new ClientHandler(recordingConnection(sent), server);
+        handler.processCommand("PROTOCOL:BINARY");
+        handler.processCommand("COMPRESS:DEFLATE");
+
+        String nearLimit = "x".repeat(BinaryFrameCodec.MAX_FRAME_BYTES - 64);
+        handler.sendDirect(OutboundMessage.of("FRIENDS", nearLimit));
+        BinaryFrameCodec.Frame uncompressed = lastFrame(sent);
+
+        String after = "y".repeat(4096);
+        handler.sendDirect(OutboundMessage.of("FRIENDS", after));
+        BinaryFrameCodec.Frame deflated = lastFrame(sent);
+        Inflater inflater = new Inflater(true);
+        inflater.setInput(deflated.payload());
+        byte[] buffer = new byte[1 << 16];
+        int length = inflater.inflate(buffer);
+
+        boolean expected = uncompressed.opcode() == BinaryFrameCodec.Opcode.FRIENDS
+                && nearLimit.equals(uncompressed.fields()[0])
+                && deflated.opcode() == BinaryFrameCodec.Opcode.DEFLATED
+                && Arrays.equals(BinaryFrameCodec.encode(BinaryFrameCodec.Opcode.FRIENDS, after),
+                        Arrays.copyOf(buffer, length));
+        assertEquals(true, expected);
+        server.shutdown();
+    }
+
+    private static ClientConnection recordingConnection(List<EncodedLine> sent) {
+        return new ClientConnection() {
+            @Override
+            public boolean send(EncodedLine line) {
+                sent.add(line);
+                return true;
+            }
+
+            @Override
+            public int getOutboundQueueDepth() {
+                return 0;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static BinaryFrameCodec.Frame lastFrame(List<EncodedLine> sent) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sent.get(sent.size() - 1).writeTo(bytes);
+        return BinaryFrameCodec.readFrame(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
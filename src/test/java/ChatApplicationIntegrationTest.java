@@ -1,3 +1,5 @@
+import db.Database;
+import db.DatabaseSettings;
 import db.SchemaManager;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -5,6 +7,8 @@ import org.junit.jupiter.api.Test;
 
 import java.io.*;
 import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -13,29 +17,43 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class ChatApplicationIntegrationTest {
 
-    private static Thread serverThread;
+    private static Path databaseDir;
+    private static ChatServer server;
 
     @BeforeAll
     static void startServerOnce() throws Exception {
-
-        java.nio.file.Files.deleteIfExists(java.nio.file.Paths.get("chat.db"));
-
+        databaseDir = Files.createTempDirectory("chat-integration");
+        DatabaseSettings defaults = DatabaseSettings.fromSystemProperties();
+        Database.open(new DatabaseSettings(
+                databaseDir.resolve("chat.db").toString(),
+                defaults.readers(),
+                defaults.journalMode(),
+                defaults.synchronous(),
+                defaults.cacheSize(),
+                defaults.mmapSize(),
+                defaults.busyTimeoutMillis(),
+                defaults.statementCacheSize()
+        ));
         SchemaManager.initialize();
 
-        ChatServer server = new ChatServer();
-        serverThread = new Thread(server::start);
+        server = new ChatServer();
+        Thread serverThread = new Thread(server::start);
         serverThread.setDaemon(true);
         serverThread.start();
 
         Thread.sleep(1000);
     }
+
     @AfterAll
     static void stopServer() throws Exception {
-        try {
-            new Socket("localhost", 8888).close(); // wakes server blocking accept()
-        } catch (Exception ignored) {}
-
-        serverThread.interrupt();
+        server.shutdown();
+        Database.open(DatabaseSettings.fromSystemProperties());
+        try (var files = Files.list(databaseDir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(databaseDir);
     }
 
     @Test
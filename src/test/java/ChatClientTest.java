@@ -1,8 +1,11 @@
 import org.junit.jupiter.api.Test;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -162,6 +165,16 @@ public class ChatClientTest {
         assertEquals(true, matchesExpected);
     }
 
+    @Test
+    void requestShouldPrefixCommandWithIncreasingRequestIds() throws Exception {
+        TestWriter writer = new TestWriter();
+        ChatClient client = createClientWithWriter(writer);
+        client.fetchOnlineFriends();
+        client.request("SERVER_MEMBERS", "general");
+        boolean matchesExpected = writer.getOutput().equals("@1:GET_FRIENDS" + System.lineSeparator() + "@2:SERVER_MEMBERS:general");
+        assertEquals(true, matchesExpected);
+    }
+
     @Test
     void disconnectShouldCloseUnderlyingSocketWhenPresent() throws Exception {
         TestSocket socket = new TestSocket();
@@ -172,4 +185,43 @@ public class ChatClientTest {
         boolean socketClosed = socket.wasClosed();
         assertEquals(true, socketClosed);
     }
+
+    @Test
+    void binarySearchResultsShouldKeepSeparatorsInContent() throws Exception {
+        ChatClient client = new ChatClient("user-3", "Carol");
+        byte[] encoded = BinaryFrameCodec.encode(BinaryFrameCodec.Opcode.SEARCH_RESULTS,
+                "bob", "", "12:00", "Bob", "a|b~c:d");
+        Method handleFrame = ChatClient.class.getDeclaredMethod("handleFrame", BinaryFrameCodec.Frame.class);
+        handleFrame.setAccessible(true);
+
+        PrintStream original = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try {
+            handleFrame.invoke(client, BinaryFrameCodec.decode(encoded, 0, encoded.length));
+        } finally {
+            System.setOut(original);
+        }
+        assertEquals(true, printed.toString().contains("[12:00] Bob: a|b~c:d"));
+    }
+
+    @Test
+    void malformedTextSearchEntriesShouldBeSkipped() throws Exception {
+        ChatClient client = new ChatClient("user-4", "Dave");
+        Field authenticated = ChatClient.class.getDeclaredField("authenticated");
+        authenticated.setAccessible(true);
+        authenticated.set(client, true);
+        Method handle = ChatClient.class.getDeclaredMethod("handleServerMessage", String.class);
+        handle.setAccessible(true);
+
+        PrintStream original = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try {
+            handle.invoke(client, "SEARCH_RESULTS:bob::12:00~Bob~a|b");
+        } finally {
+            System.setOut(original);
+        }
+        assertEquals(true, printed.toString().contains("Search Results with bob"));
+    }
 }
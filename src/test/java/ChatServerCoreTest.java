@@ -1,4 +1,7 @@
 import db.SchemaManager;
+import db.dao.ServerDAO;
+import db.dao.ServerMessageDAO;
+import db.model.MessagePage;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -17,4 +20,25 @@ public class ChatServerCoreTest {
         boolean exists = server.userExists("does-not-exist");
         assertEquals(false, exists);
     }
+
+    @Test
+    void roomsStoredBeforeStartupShouldBeLoadedOnFirstUse() {
+        String serverId = "stored" + System.nanoTime();
+        ServerDAO serverDAO = new ServerDAO();
+        serverDAO.createServer(serverId, "Stored", "owner1");
+        serverDAO.addMember(serverId, "owner1");
+        serverDAO.addMember(serverId, "member1");
+        new ServerMessageDAO().saveMessage(serverId + "-1", serverId, "member1", "hello", 1000L);
+
+        ChatServer server = new ChatServer(new ServerConfig().setPort(0));
+        MessagePage page = server.getServerHistory(serverId, true, Long.MAX_VALUE, "", 10);
+        boolean loaded = server.isServerMember(serverId, "member1")
+                && !server.isServerMember(serverId, "stranger")
+                && page.messages().size() == 1
+                && "hello".equals(page.messages().get(0).getContent())
+                && server.getMetrics().get("rooms.loaded") == 1
+                && server.getMetrics().get("rooms.history.hits") == 1;
+        assertEquals(true, loaded);
+        server.shutdown();
+    }
 }
@@ -0,0 +1,93 @@
+import db.Database;
+import db.DatabaseSettings;
+import db.SchemaManager;
+import db.dao.UserDAO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DatabaseTest {
+
+    @BeforeAll
+    static void initializeSchema() {
+        SchemaManager.initialize();
+    }
+
+    @Test
+    void writerShouldRunInWalMode() {
+        String mode = Database.getInstance().withWriter(conn -> {
+            try (Statement stmt = conn.connection().createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        });
+        assertEquals("wal", mode);
+    }
+
+    @Test
+    void readerConnectionsShouldRejectWrites() {
+        boolean rejected;
+        try {
+            Database.getInstance().withReader(conn -> {
+                try (Statement stmt = conn.connection().createStatement()) {
+                    return stmt.executeUpdate("INSERT INTO servers (id, name, owner_id) VALUES ('ro', 'ro', 'ro')");
+                }
+            });
+            rejected = false;
+        } catch (RuntimeException e) {
+            rejected = true;
+        }
+        assertEquals(true, rejected);
+    }
+
+    @Test
+    void poolUsageShouldBeReportedInStats() {
+        long before = Database.getInstance().stats().get("db.readers.acquired");
+        Database.getInstance().withReader(conn -> 1);
+        long after = Database.getInstance().stats().get("db.readers.acquired");
+        assertEquals(true, after == before + 1 && Database.getInstance().stats().get("db.readers.inUse") == 0);
+    }
+
+    @Test
+    void unknownPragmaValuesShouldBeRejected() {
+        boolean rejected;
+        try {
+            new DatabaseSettings("chat.db", 2, "WAL", "SOMETIMES", -2000, 0, 1000, 16);
+            rejected = false;
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertEquals(true, rejected);
+    }
+
+    @Test
+    void disabledStatementCacheShouldBeRejected() {
+        boolean rejected;
+        try {
+            new DatabaseSettings("chat.db", 2, "WAL", "NORMAL", -2000, 0, 1000, 0);
+            rejected = false;
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertEquals(true, rejected);
+    }
+
+    @Test
+    void repeatedDaoCallsShouldReuseCachedStatements() {
+        UserDAO users = new UserDAO();
+        for (int i = 0; i < 20; i++) {
+            users.exists("cache-probe");
+        }
+        long hitsBefore = Database.getInstance().stats().get("db.statements.hits");
+        long missesBefore = Database.getInstance().stats().get("db.statements.misses");
+        for (int i = 0; i < 10; i++) {
+            users.exists("cache-probe");
+        }
+        boolean cached = Database.getInstance().stats().get("db.statements.hits") >= hitsBefore + 10
+                && Database.getInstance().stats().get("db.statements.misses") == missesBefore;
+        assertEquals(true, cached);
+    }
+}
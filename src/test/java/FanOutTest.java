@@ -0,0 +1,87 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FanOutTest {
+
+    private static String[] members(int count) {
+        String[] members = new String[count];
+        for (int i = 0; i < count; i++) {
+            members[i] = "member" + i;
+        }
+        return members;
+    }
+
+    @Test
+    void parallelDeliveryShouldReachEveryMemberOnce() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Map<String, Integer> received = new ConcurrentHashMap<>();
+            String[] members = members(5_000);
+            int delivered = FanOut.deliver(pool, members, 64, id -> {
+                received.merge(id, 1, Integer::sum);
+                return 1;
+            });
+
+            boolean once = delivered == members.length
+                    && received.size() == members.length
+                    && received.values().stream().allMatch(count -> count == 1);
+            assertEquals(true, once);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void successiveBroadcastsShouldArriveInOrderForEachRecipient() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Map<String, List<Integer>> inbox = new ConcurrentHashMap<>();
+            String[] members = members(2_000);
+            for (int message = 0; message < 20; message++) {
+                int sequence = message;
+                FanOut.deliver(pool, members, 100, id -> {
+                    inbox.computeIfAbsent(id, k -> new ArrayList<>()).add(sequence);
+                    return 1;
+                });
+            }
+
+            boolean ordered = true;
+            for (List<Integer> messages : inbox.values()) {
+                for (int i = 0; ordered && i < messages.size(); i++) {
+                    ordered = messages.get(i) == i;
+                }
+            }
+            assertEquals(true, ordered && inbox.size() == members.length);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void offlineMembersShouldNotBeCounted() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            int delivered = FanOut.deliver(pool, members(1_000), 50, id -> id.endsWith("0") ? 1 : 0);
+            assertEquals(100, delivered);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void bucketsShouldGroupRoomSizesAndLatencies() {
+        boolean sizes = FanOut.sizeBucket(10).equals("lt100")
+                && FanOut.sizeBucket(999).equals("lt1k")
+                && FanOut.sizeBucket(50_000).equals("10kPlus");
+        boolean latencies = FanOut.latencyBucket(50_000).equals("under100us")
+                && FanOut.latencyBucket(5_000_000).equals("under10ms");
+        assertEquals(true, sizes && latencies);
+    }
+}
@@ -0,0 +1,90 @@
+import db.Database;
+import db.SchemaManager;
+import db.dao.DMDAO;
+import db.dao.ServerMessageDAO;
+import db.model.MessagePage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HistoryPaginationTest {
+
+    @BeforeAll
+    static void initializeSchema() {
+        SchemaManager.initialize();
+    }
+
+    @Test
+    void newestPageShouldBeReturnedOldestFirst() {
+        String[] users = MessageFixtures.seedConversation("page", 1000L, MessageFixtures.numbered(5));
+        MessagePage page = new DMDAO().getPage(users[0], users[1], true, Long.MAX_VALUE, "", 3);
+        assertEquals(List.of("m2", "m3", "m4"), MessageFixtures.contents(page.messages()));
+        assertEquals(true, page.hasMore());
+    }
+
+    @Test
+    void scrollingBackShouldVisitEveryMessageOnceWithEqualTimestamps() {
+        String[] users = MessageFixtures.seedConversation("page", 2000L, MessageFixtures.numbered(7));
+        DMDAO dao = new DMDAO();
+        List<String> seen = new ArrayList<>();
+        MessagePage page = dao.getPage(users[0], users[1], true, Long.MAX_VALUE, "", 3);
+        seen.addAll(0, MessageFixtures.contents(page.messages()));
+        while (page.hasMore()) {
+            MessagePage.Cursor cursor = MessagePage.Cursor.parse(page.olderCursor());
+            page = dao.getPage(users[0], users[1], true, cursor.timestamp(), cursor.id(), 3);
+            seen.addAll(0, MessageFixtures.contents(page.messages()));
+        }
+        assertEquals(List.of("m0", "m1", "m2", "m3", "m4", "m5", "m6"), seen);
+    }
+
+    @Test
+    void afterCursorShouldReturnNewerMessages() {
+        String[] users = MessageFixtures.seedConversation("page", 3000L, MessageFixtures.numbered(4));
+        DMDAO dao = new DMDAO();
+        MessagePage first = dao.getPage(users[0], users[1], false, Long.MIN_VALUE, "", 2);
+        MessagePage.Cursor cursor = MessagePage.Cursor.parse(first.newerCursor());
+        MessagePage second = dao.getPage(users[0], users[1], false, cursor.timestamp(), cursor.id(), 2);
+        assertEquals(List.of("m0", "m1"), MessageFixtures.contents(first.messages()));
+        assertEquals(List.of("m2", "m3"), MessageFixtures.contents(second.messages()));
+        assertEquals(false, second.hasMore());
+    }
+
+    @Test
+    void pageQueriesShouldRangeScanTheConversationIndex() {
+        for (String sql : List.of(DMDAO.PAGE_BEFORE_SQL, DMDAO.PAGE_AFTER_SQL)) {
+            String plan = Database.getInstance().withReader(conn -> {
+                StringBuilder details = new StringBuilder();
+                try (PreparedStatement ps = conn.connection().prepareStatement("EXPLAIN QUERY PLAN " + sql);
+                     ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        details.append(rs.getString("detail")).append('\n');
+                    }
+                }
+                return details.toString();
+            });
+            assertEquals(true, plan.contains("idx_dm_messages_conversation_time_id (conversation_id=? AND (timestamp,id)")
+                    && !plan.contains("TEMP B-TREE"));
+        }
+    }
+
+    @Test
+    void serverHistoryShouldPageByTimestampAndId() {
+        String serverId = "pageRoom" + System.nanoTime();
+        ServerMessageDAO dao = new ServerMessageDAO();
+        for (int i = 0; i < 5; i++) {
+            dao.saveMessage(serverId + "-" + i, serverId, "u1", "m" + i, 4000L);
+        }
+        MessagePage newest = dao.getPage(serverId, true, Long.MAX_VALUE, "", 2);
+        MessagePage.Cursor cursor = MessagePage.Cursor.parse(newest.olderCursor());
+        MessagePage older = dao.getPage(serverId, true, cursor.timestamp(), cursor.id(), 10);
+        assertEquals(List.of("m3", "m4"), MessageFixtures.contents(newest.messages()));
+        assertEquals(List.of("m0", "m1", "m2"), MessageFixtures.contents(older.messages()));
+        assertEquals(false, older.hasMore());
+    }
+}
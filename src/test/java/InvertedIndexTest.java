@@ -0,0 +1,84 @@
+import Message.Message;
+import db.FullTextQuery;
+import db.model.MessagePage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class InvertedIndexTest {
+
+    private static Message message(String content, long timestamp) {
+        return new Message("m" + timestamp, "u1", "u2", content, Message.MessageType.DIRECT_MESSAGE, timestamp);
+    }
+
+    private static InvertedIndex indexOf(String... contents) {
+        InvertedIndex index = new InvertedIndex();
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < contents.length; i++) {
+            messages.add(message(contents[i], i));
+        }
+        index.backfill(messages);
+        return index;
+    }
+
+    private static List<String> search(InvertedIndex index, String query, int limit, int offset) {
+        return MessageFixtures.contents(index.search(FullTextQuery.parse(query), limit, offset));
+    }
+
+    @Test
+    void tokenizerShouldFoldCaseAndDiacritics() {
+        assertEquals(List.of("cafe", "deja", "vu", "v2"), InvertedIndex.tokenize("Café, DÉJÀ-vu! v2"));
+    }
+
+    @Test
+    void everyTermShouldHaveToMatch() {
+        InvertedIndex index = indexOf("deploy the build", "build broke", "deploy tomorrow");
+        assertEquals(List.of("deploy the build"), search(index, "build deploy", 10, 0));
+    }
+
+    @Test
+    void prefixTermsShouldMatchEveryCompletion() {
+        InvertedIndex index = indexOf("deployment done", "deployed it", "redeploy later");
+        assertEquals(2, search(index, "deploy*", 10, 0).size());
+    }
+
+    @Test
+    void phrasesShouldRequireAdjacentTokens() {
+        InvertedIndex index = indexOf("notes for the release", "release notes attached", "release notebook");
+        assertEquals(List.of("release notes attached"), search(index, "\"release notes\"", 10, 0));
+        assertEquals(2, search(index, "\"release note\"*", 10, 0).size());
+    }
+
+    @Test
+    void denserMatchesShouldRankFirstAndPagesShouldNotOverlap() {
+        InvertedIndex index = indexOf("apple", "apple apple apple", "banana apple cherry date elderberry fig grape", "kiwi");
+        List<String> first = search(index, "apple", 2, 0);
+        List<String> second = search(index, "apple", 2, 2);
+        assertEquals("apple apple apple", first.get(0));
+        assertEquals(List.of("banana apple cherry date elderberry fig grape"), second);
+        assertEquals(false, index.search(FullTextQuery.parse("apple"), 2, 2).hasMore());
+    }
+
+    @Test
+    void backfillShouldKeepLiveMessagesWithoutDuplicatingStoredOnes() {
+        InvertedIndex index = new InvertedIndex();
+        Message stored = message("persisted hello", 1);
+        index.add(new Message("live-id", "u1", "u2", "persisted hello", Message.MessageType.DIRECT_MESSAGE, 1));
+        index.add(message("brand new hello", 2));
+        index.backfill(List.of(stored));
+        MessagePage page = index.search(FullTextQuery.parse("hello"), 10, 0);
+        assertEquals(2, page.messages().size());
+        assertEquals(true, index.isLoaded() && index.size() == 2);
+    }
+
+    @Test
+    void estimatedBytesShouldGrowWithContent() {
+        InvertedIndex index = indexOf("short");
+        long before = index.estimatedBytes();
+        long added = index.add(message("a much longer message with many distinct words in it", 9));
+        assertEquals(true, added > 0 && index.estimatedBytes() == before + added);
+    }
+}
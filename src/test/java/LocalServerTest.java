@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LocalServerTest {
+
+    @Test
+    void ownerShouldBeTheFirstMember() {
+        LocalServer server = new LocalServer("s1", "Room", "owner");
+        String[] members = server.memberSnapshot();
+        assertEquals(true, members.length == 1 && "owner".equals(members[0]) && server.isMember("owner"));
+    }
+
+    @Test
+    void joinAndLeaveShouldPublishNewSnapshotsWithoutChangingOldOnes() {
+        LocalServer server = new LocalServer("s1", "Room", "owner");
+        String[] beforeJoin = server.memberSnapshot();
+        server.addMember("alice");
+        String[] afterJoin = server.memberSnapshot();
+        server.removeMember("alice");
+        String[] afterLeave = server.memberSnapshot();
+
+        boolean versioned = beforeJoin.length == 1
+                && afterJoin.length == 2
+                && afterLeave.length == 1
+                && !server.isMember("alice");
+        assertEquals(true, versioned);
+    }
+
+    @Test
+    void duplicateJoinShouldNotAddASecondEntry() {
+        LocalServer server = new LocalServer("s1", "Room", "owner");
+        server.addMember("alice");
+        server.addMember("alice");
+        assertEquals(2, server.getMemberCount());
+    }
+
+    @Test
+    void ownerOfUserServerShouldNotBeRemovable() {
+        LocalServer server = new LocalServer("s1", "Room", "owner");
+        server.removeMember("owner");
+        assertEquals(true, server.isMember("owner"));
+    }
+
+    @Test
+    void systemOwnedServerShouldNotCountTheSystemOwner() {
+        LocalServer server = new LocalServer("general", "General", "SYSTEM");
+        server.addMember("alice");
+        assertEquals(1, server.getMemberCount());
+    }
+
+    @Test
+    void readersShouldIterateSafelyWhileMembersChange() throws Exception {
+        LocalServer server = new LocalServer("s1", "Room", "owner");
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Thread reader = new Thread(() -> {
+                while (writing.get()) {
+                    for (String member : server.memberSnapshot()) {
+                        if (member == null) {
+                            failed.set(true);
+                        }
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            server.addMember("user" + i);
+            if (i % 2 == 0) {
+                server.removeMember("user" + i);
+            }
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(true, !failed.get() && server.getMemberCount() == 1_001);
+    }
+}
@@ -0,0 +1,48 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LockStripesTest {
+
+    @Test
+    void stripeCountShouldRoundUpToPowerOfTwo() {
+        assertEquals(true, new LockStripes(64).size() == 64 && new LockStripes(65).size() == 128);
+    }
+
+    @Test
+    void sameKeyShouldAlwaysMapToSameLock() {
+        LockStripes stripes = new LockStripes(16);
+        assertEquals(true, stripes.lockFor("conversation-a") == stripes.lockFor("conversation-" + "a"));
+    }
+
+    @Test
+    void lockBothShouldNotDeadlockWhenTakenInOppositeOrder() throws Exception {
+        LockStripes stripes = new LockStripes(16);
+        CountDownLatch done = new CountDownLatch(2);
+        AtomicBoolean failed = new AtomicBoolean();
+        Runnable forward = () -> repeatLockBoth(stripes, "alice", "bob", done, failed);
+        Runnable backward = () -> repeatLockBoth(stripes, "bob", "alice", done, failed);
+        new Thread(forward).start();
+        new Thread(backward).start();
+
+        assertEquals(true, done.await(5, TimeUnit.SECONDS) && !failed.get());
+    }
+
+    private static void repeatLockBoth(LockStripes stripes, String first, String second,
+                                       CountDownLatch done, AtomicBoolean failed) {
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                stripes.lockBoth(first, second);
+                stripes.unlockBoth(first, second);
+            }
+        } catch (RuntimeException e) {
+            failed.set(true);
+        } finally {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import Message.Message;
+import db.dao.DMDAO;
+import db.model.MessagePage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MessageFixtures {
+
+    private MessageFixtures() {
+    }
+
+    public static String[] seedConversation(String prefix, long timestamp, String... contents) {
+        String alice = prefix + "A" + System.nanoTime();
+        String bob = prefix + "B" + System.nanoTime();
+        DMDAO dao = new DMDAO();
+        for (int i = 0; i < contents.length; i++) {
+            dao.saveMessage("id" + i + alice, alice + "_" + bob, alice, bob, contents[i], timestamp);
+        }
+        return new String[]{alice, bob};
+    }
+
+    public static String[] numbered(int count) {
+        String[] contents = new String[count];
+        for (int i = 0; i < count; i++) {
+            contents[i] = "m" + i;
+        }
+        return contents;
+    }
+
+    public static List<String> contents(MessagePage page) {
+        return contents(page.messages());
+    }
+
+    public static List<String> contents(List<Message> messages) {
+        List<String> contents = new ArrayList<>();
+        for (Message message : messages) {
+            contents.add(message.getContent());
+        }
+        return contents;
+    }
+}
@@ -0,0 +1,78 @@
+import Message.Message;
+import db.model.MessagePage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MessageRingTest {
+
+    private static Message message(long timestamp) {
+        return new Message("id" + timestamp, "u1", "room", "m" + timestamp, Message.MessageType.SERVER_MESSAGE, timestamp);
+    }
+
+    @Test
+    void ringShouldKeepOnlyTheNewestMessages() {
+        MessageRing ring = new MessageRing(3);
+        for (long i = 1; i <= 5; i++) {
+            ring.add(message(i));
+        }
+        assertEquals(List.of("m3", "m4", "m5"), MessageFixtures.contents(ring.snapshot()));
+    }
+
+    @Test
+    void pageInsideTheBufferShouldBeAHit() {
+        MessageRing ring = new MessageRing(10);
+        ring.warm(List.of(), true);
+        for (long i = 1; i <= 10; i++) {
+            ring.add(message(i));
+        }
+        MessagePage page = ring.page(true, Long.MAX_VALUE, "", 3);
+        assertEquals(List.of("m8", "m9", "m10"), MessageFixtures.contents(page));
+        assertEquals(true, page.hasMore());
+    }
+
+    @Test
+    void pageReachingPastTheBufferShouldMissUnlessHistoryIsComplete() {
+        MessageRing partial = new MessageRing(10);
+        partial.warm(List.of(message(1), message(2)), true);
+        MessageRing complete = new MessageRing(10);
+        complete.warm(List.of(message(1), message(2)), false);
+
+        assertEquals(null, partial.page(true, 2, "id2", 5));
+        MessagePage page = complete.page(true, 2, "id2", 5);
+        assertEquals(List.of("m1"), MessageFixtures.contents(page));
+        assertEquals(false, page.hasMore());
+    }
+
+    @Test
+    void warmShouldMergeLiveMessagesWithoutDuplicates() {
+        MessageRing ring = new MessageRing(4);
+        ring.add(message(3));
+        ring.add(message(4));
+        ring.warm(List.of(message(1), message(2), message(3)), false);
+        MessagePage page = ring.page(false, Long.MIN_VALUE, "", 10);
+        assertEquals(List.of("m1", "m2", "m3", "m4"), MessageFixtures.contents(page));
+    }
+
+    @Test
+    void overflowingAfterWarmShouldMarkHistoryIncomplete() {
+        MessageRing ring = new MessageRing(2);
+        ring.warm(List.of(), false);
+        ring.add(message(1));
+        ring.add(message(2));
+        ring.add(message(3));
+        assertEquals(null, ring.page(false, Long.MIN_VALUE, "", 10));
+        assertEquals(List.of("m3"), MessageFixtures.contents(ring.page(false, 2, "id2", 10)));
+    }
+
+    @Test
+    void estimatedBytesShouldTrackOnlyRetainedMessages() {
+        MessageRing ring = new MessageRing(2);
+        for (long i = 1; i <= 4; i++) {
+            ring.add(message(i));
+        }
+        assertEquals(message(3).estimatedBytes() + message(4).estimatedBytes(), ring.estimatedBytes());
+    }
+}
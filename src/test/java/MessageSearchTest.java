@@ -0,0 +1,140 @@
+import db.Database;
+import db.FullTextQuery;
+import db.SchemaManager;
+import db.dao.DMDAO;
+import db.dao.ServerMessageDAO;
+import db.model.MessagePage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MessageSearchTest {
+
+    @BeforeAll
+    static void initializeSchema() {
+        SchemaManager.initialize();
+    }
+
+    @Test
+    void userInputShouldBecomeQuotedTerms() {
+        assertEquals("\"deploy\"* \"release notes\" \"AND\" \"open phrase\"",
+                FullTextQuery.toMatchExpression("deploy*  \"release notes\" AND \"open phrase"));
+        assertEquals("", FullTextQuery.toMatchExpression("  \"\" * "));
+    }
+
+    @Test
+    void searchShouldSurviveDeletesAndVacuum() {
+        String[] users = MessageFixtures.seedConversation("search", 1000L,
+                "vacuum first", "vacuum second", "vacuum third");
+        String conversation = users[0] + "_" + users[1];
+        Database.getInstance().withWriter(conn -> {
+            try (PreparedStatement ps = conn.connection().prepareStatement(
+                    "DELETE FROM dm_messages WHERE conversation_id = ? AND content = 'vacuum first'")) {
+                ps.setString(1, conversation);
+                ps.executeUpdate();
+            }
+            try (Statement statement = conn.connection().createStatement()) {
+                statement.execute("VACUUM");
+            }
+            return null;
+        });
+        MessagePage page = new DMDAO().searchMessages(users[0], users[1], "third", 10, 0);
+        assertEquals(List.of("vacuum third"), MessageFixtures.contents(page));
+    }
+
+    @Test
+    void prefixAndPhraseQueriesShouldMatch() {
+        String[] users = MessageFixtures.seedConversation("search", 1000L,
+                "deployment finished", "notes about the release", "release notes attached");
+        DMDAO dao = new DMDAO();
+        assertEquals(List.of("deployment finished"),
+                MessageFixtures.contents(dao.searchMessages(users[0], users[1], "deploy*", 10, 0)));
+        assertEquals(List.of("release notes attached"),
+                MessageFixtures.contents(dao.searchMessages(users[0], users[1], "\"release notes\"", 10, 0)));
+        assertEquals(List.of(), MessageFixtures.contents(dao.searchMessages(users[0], users[1], "deploy", 10, 0)));
+    }
+
+    @Test
+    void resultsShouldStayInsideTheConversation() {
+        String[] first = MessageFixtures.seedConversation("search", 1000L, "shared keyword here");
+        String[] second = MessageFixtures.seedConversation("search", 1000L, "shared keyword there");
+        MessagePage page = new DMDAO().searchMessages(first[0], first[1], "keyword", 10, 0);
+        assertEquals(List.of("shared keyword here"), MessageFixtures.contents(page));
+        assertEquals(1, new DMDAO().searchMessages(second[1], second[0], "keyword", 10, 0).messages().size());
+    }
+
+    @Test
+    void betterMatchesShouldRankFirstAndPagesShouldNotOverlap() {
+        String[] users = MessageFixtures.seedConversation("search", 1000L,
+                "apple", "apple apple apple", "banana apple cherry date elderberry fig grape");
+        DMDAO dao = new DMDAO();
+        MessagePage first = dao.searchMessages(users[0], users[1], "apple", 2, 0);
+        MessagePage second = dao.searchMessages(users[0], users[1], "apple", 2, 2);
+        assertEquals("apple apple apple", first.messages().get(0).getContent());
+        assertEquals(true, first.hasMore() && !second.hasMore());
+        assertEquals(List.of("banana apple cherry date elderberry fig grape"), MessageFixtures.contents(second));
+    }
+
+    @Test
+    void updatesAndDeletesShouldBeReflectedInTheIndex() {
+        String[] users = MessageFixtures.seedConversation("search", 1000L, "original wording");
+        String conv = users[0] + "_" + users[1];
+        DMDAO dao = new DMDAO();
+        Database.getInstance().withWriter(conn -> {
+            PreparedStatement ps = conn.connection().prepareStatement(
+                    "UPDATE dm_messages SET content = 'revised wording' WHERE conversation_id = ?");
+            ps.setString(1, conv);
+            return ps.executeUpdate();
+        });
+        boolean updated = dao.searchMessages(users[0], users[1], "original", 10, 0).messages().isEmpty()
+                && dao.searchMessages(users[0], users[1], "revised", 10, 0).messages().size() == 1;
+        Database.getInstance().withWriter(conn -> {
+            PreparedStatement ps = conn.connection().prepareStatement("DELETE FROM dm_messages WHERE conversation_id = ?");
+            ps.setString(1, conv);
+            return ps.executeUpdate();
+        });
+        boolean deleted = dao.searchMessages(users[0], users[1], "wording", 10, 0).messages().isEmpty();
+        assertEquals(true, updated && deleted);
+    }
+
+    @Test
+    void serverMessagesShouldBeSearchable() {
+        String serverId = "searchRoom" + System.nanoTime();
+        ServerMessageDAO dao = new ServerMessageDAO();
+        dao.saveMessage(serverId, "u1", "standup moved to friday", 1L);
+        dao.saveMessage("other" + serverId, "u1", "standup cancelled", 2L);
+        MessagePage page = dao.searchMessages(serverId, "stand*", 10, 0);
+        assertEquals(List.of("standup moved to friday"), MessageFixtures.contents(page));
+    }
+
+    @Test
+    void searchQueriesMayContainColons() {
+        String[] users = MessageFixtures.seedConversation("search", 1000L, "eta: 5pm today", "eta tomorrow");
+        ChatServer server = new ChatServer(new ServerConfig().setPort(0));
+        SlowConsumerPolicyTest.RecordingConnection connection = new SlowConsumerPolicyTest.RecordingConnection();
+        ClientHandler handler = new ClientHandler(connection, server);
+        handler.processCommand("REGISTER:" + users[0] + ":Alice:pw");
+
+        handler.processCommand("SEARCH_DM:" + users[1] + ":10::\"eta: 5pm\"");
+        handler.processCommand("SEARCH_DM:" + users[1] + ":eta: 5pm");
+        List<String> results = new ArrayList<>();
+        for (String line : connection.lines) {
+            if (line.startsWith("SEARCH_RESULTS:")) {
+                results.add(line);
+            }
+        }
+
+        boolean expected = results.size() == 2
+                && results.get(0).startsWith("SEARCH_RESULTS:" + users[1] + "::")
+                && results.get(0).endsWith("~eta: 5pm today")
+                && results.get(1).endsWith("~eta: 5pm today");
+        assertEquals(true, expected);
+        server.shutdown();
+    }
+}
@@ -0,0 +1,317 @@
+import db.SchemaManager;
+import db.dao.ServerDAO;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NioTransportTest {
+
+    private static final int PORT = 8891;
+    private static ChatServer server;
+
+    @BeforeAll
+    static void startNioServer() throws Exception {
+        SchemaManager.initialize();
+
+        server = new ChatServer(new ServerConfig()
+                .setPort(PORT)
+                .setTransport(ServerConfig.Transport.NIO)
+                .setEventLoopThreads(2));
+        Thread serverThread = new Thread(server::start);
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        Thread.sleep(500);
+    }
+
+    @AfterAll
+    static void stopNioServer() {
+        server.shutdown();
+    }
+
+    @Test
+    void commandWithoutLoginShouldReturnNotLoggedInOverNio() throws Exception {
+        RawClient client = new RawClient();
+        client.send("SEND_DM:anyone:hello");
+        String error = client.waitForPrefix("ERROR:NOT_LOGGED_IN", 3000);
+        assertEquals(true, error != null);
+        client.close();
+    }
+
+    @Test
+    void registerShouldSucceedOverNio() throws Exception {
+        String userId = "nioUser" + System.nanoTime();
+        RawClient client = new RawClient();
+        client.send("REGISTER:" + userId + ":NioUser:nioPass");
+        String response = client.waitForPrefix("REGISTER_OK:" + userId + ":NioUser", 3000);
+        assertEquals(true, response != null);
+        client.close();
+    }
+
+    @Test
+    void commandsSplitAcrossWritesShouldBeFramedByNewline() throws Exception {
+        String userId = "nioSplit" + System.nanoTime();
+        RawClient client = new RawClient();
+        client.sendRaw("REGISTER:" + userId + ":Nio");
+        Thread.sleep(100);
+        client.sendRaw("Split:pw\r\nGET_FRIENDS\n");
+        String registered = client.waitForPrefix("REGISTER_OK:" + userId + ":NioSplit", 3000);
+        String friends = client.waitForPrefix("FRIENDS:", 3000);
+        assertEquals(true, registered != null && friends != null);
+        client.close();
+    }
+
+    @Test
+    void responsesLongerThanTheWriteBufferShouldArriveIntact() throws Exception {
+        String userId = "nioLong" + System.nanoTime();
+        String username = "N".repeat(20000);
+        RawClient client = new RawClient();
+        client.send("REGISTER:" + userId + ":" + username + ":pw");
+        client.send("GET_FRIENDS");
+        String registered = client.waitForPrefix("REGISTER_OK:" + userId + ":", 3000);
+        String friends = client.waitForPrefix("FRIENDS:", 3000);
+        boolean intact = registered != null
+                && registered.equals("REGISTER_OK:" + userId + ":" + username)
+                && friends != null;
+        assertEquals(true, intact);
+        client.close();
+    }
+
+    @Test
+    void pipelinedRequestsShouldEchoTheirRequestIds() throws Exception {
+        String userId = "nioPipe" + System.nanoTime();
+        RawClient client = new RawClient();
+        client.send("@1:REGISTER:" + userId + ":Pipe:pw");
+        String registered = client.waitForPrefix("@1:REGISTER_OK:" + userId, 3000);
+        client.sendRaw("@7:GET_FRIENDS\n@8:LIST_SERVERS\n@9:GET_BLOCKED\n");
+
+        Set<String> expectedTags = Set.of("@7:FRIENDS", "@8:SERVERS", "@9:BLOCKED_LIST");
+        Set<String> tagged = new HashSet<>();
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!tagged.containsAll(expectedTags) && System.currentTimeMillis() < deadline) {
+            String line = client.waitForPrefix("@", 500);
+            if (line != null) {
+                tagged.add(line.substring(0, line.indexOf(':', line.indexOf(':') + 1)));
+            }
+        }
+        boolean expected = registered != null
+                && tagged.containsAll(expectedTags);
+        assertEquals(true, expected);
+        client.close();
+    }
+
+    @Test
+    void malformedRequestIdShouldBeRejected() throws Exception {
+        RawClient client = new RawClient();
+        client.send("@abc:GET_FRIENDS");
+        String error = client.waitForPrefix("ERROR:BAD_REQUEST_ID", 3000);
+        assertEquals(true, error != null);
+        client.close();
+    }
+
+    @Test
+    void negotiatedCompressionShouldDeflateLargeResponses() throws Exception {
+        String userId = "nioDeflate" + System.nanoTime();
+        String username = "Z".repeat(5000);
+        RawClient client = new RawClient();
+        client.send("COMPRESS:DEFLATE");
+        String accepted = client.waitForPrefix("COMPRESS_OK:DEFLATE", 3000);
+        client.send("REGISTER:" + userId + ":" + username + ":pw");
+        String compressed = client.waitForPrefix("DEFLATED:", 3000);
+
+        String inflated = null;
+        if (compressed != null) {
+            Inflater inflater = new Inflater(true);
+            inflater.setInput(Base64.getDecoder().decode(compressed.substring("DEFLATED:".length())));
+            byte[] buffer = new byte[1 << 16];
+            int length = inflater.inflate(buffer);
+            inflated = new String(buffer, 0, length - 1, StandardCharsets.UTF_8);
+        }
+        boolean expected = accepted != null
+                && compressed != null
+                && compressed.length() < username.length()
+                && ("REGISTER_OK:" + userId + ":" + username).equals(inflated);
+        assertEquals(true, expected);
+        client.close();
+    }
+
+    @Test
+    void negotiatedBinaryClientShouldRegisterWithFrames() throws Exception {
+        String userId = "nioBinary" + System.nanoTime();
+        try (Socket socket = new Socket("localhost", PORT)) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            out.write("PROTOCOL:BINARY\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            String reply = readLine(in);
+
+            byte[] register = BinaryFrameCodec.encode(BinaryFrameCodec.Opcode.REGISTER, userId, "Bin:ary", "pw");
+            out.write(register, 0, 3);
+            out.flush();
+            Thread.sleep(100);
+            out.write(register, 3, register.length - 3);
+            BinaryFrameCodec.write(out, BinaryFrameCodec.Opcode.GET_FRIENDS);
+            out.flush();
+            BinaryFrameCodec.Frame registered = BinaryFrameCodec.readFrame(in);
+
+            boolean expected = "PROTOCOL_OK:BINARY".equals(reply)
+                    && registered.opcode() == BinaryFrameCodec.Opcode.REGISTER_OK
+                    && "Bin:ary".equals(registered.fields()[1]);
+            assertEquals(true, expected);
+        }
+    }
+
+    @Test
+    void framesPipelinedBehindProtocolSwitchShouldBeReadAsBinary() throws Exception {
+        String userId = "nioPipeBinary" + System.nanoTime();
+        try (Socket socket = new Socket("localhost", PORT)) {
+            socket.setSoTimeout(3000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream pipelined = new ByteArrayOutputStream();
+            pipelined.write("PROTOCOL:BINARY\n".getBytes(StandardCharsets.UTF_8));
+            pipelined.write(BinaryFrameCodec.encode(BinaryFrameCodec.Opcode.REGISTER, userId, "Piped", "pw"));
+            out.write(pipelined.toByteArray());
+            out.flush();
+            String reply = readLine(in);
+            BinaryFrameCodec.Frame registered = BinaryFrameCodec.readFrame(in);
+
+            boolean expected = "PROTOCOL_OK:BINARY".equals(reply)
+                    && registered.opcode() == BinaryFrameCodec.Opcode.REGISTER_OK
+                    && userId.equals(registered.fields()[0]);
+            assertEquals(true, expected);
+        }
+    }
+
+    @Test
+    void oversizedLineShouldCloseTheConnection() throws Exception {
+        try (Socket socket = new Socket("localhost", PORT)) {
+            socket.setSoTimeout(3000);
+            byte[] line = new byte[ClientConnection.MAX_LINE_BYTES + 1];
+            Arrays.fill(line, (byte) 'A');
+            boolean closed;
+            try {
+                socket.getOutputStream().write(line);
+                socket.getOutputStream().flush();
+                closed = socket.getInputStream().read() == -1;
+            } catch (SocketTimeoutException e) {
+                closed = false;
+            } catch (IOException e) {
+                closed = true;
+            }
+            assertEquals(true, closed);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void shutdownShouldCloseEveryLoggedInConnection() throws Exception {
+        int port = 8897;
+        ChatServer stopping = new ChatServer(new ServerConfig()
+                .setPort(port)
+                .setTransport(ServerConfig.Transport.NIO)
+                .setEventLoopThreads(1));
+        Thread serverThread = new Thread(stopping::start);
+        serverThread.setDaemon(true);
+        serverThread.start();
+        Thread.sleep(500);
+
+        RawClient first = new RawClient(port);
+        RawClient second = new RawClient(port);
+        String suffix = String.valueOf(System.nanoTime());
+        first.send("REGISTER:stopA" + suffix + ":StopA:pw");
+        second.send("REGISTER:stopB" + suffix + ":StopB:pw");
+        boolean registered = first.waitForPrefix("SERVER_JOINED:general", 3000) != null
+                && second.waitForPrefix("SERVER_JOINED:general", 3000) != null;
+
+        stopping.shutdown();
+        boolean closed = first.awaitDisconnect(3000) && second.awaitDisconnect(3000);
+        List<String> general = new ServerDAO().getMembers("general");
+        boolean left = !general.contains("stopA" + suffix) && !general.contains("stopB" + suffix);
+        assertEquals(true, registered && closed && left);
+    }
+
+    static class RawClient {
+
+        private final Socket socket;
+        private final OutputStream output;
+        private final BlockingQueue<String> inbox = new LinkedBlockingQueue<>();
+        private final CountDownLatch disconnected = new CountDownLatch(1);
+
+        RawClient() throws IOException {
+            this(PORT);
+        }
+
+        RawClient(int port) throws IOException {
+            socket = new Socket("localhost", port);
+            output = socket.getOutputStream();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            Thread t = new Thread(() -> {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        inbox.offer(line);
+                    }
+                } catch (IOException ignored) {
+                } finally {
+                    disconnected.countDown();
+                }
+            });
+            t.setDaemon(true);
+            t.start();
+        }
+
+        void send(String command) throws IOException {
+            sendRaw(command + "\n");
+        }
+
+        void sendRaw(String data) throws IOException {
+            output.write(data.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+        }
+
+        String waitForPrefix(String prefix, long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (System.currentTimeMillis() < deadline) {
+                String msg = inbox.poll(200, TimeUnit.MILLISECONDS);
+                if (msg != null && msg.startsWith(prefix)) {
+                    return msg;
+                }
+            }
+            return null;
+        }
+
+        boolean awaitDisconnect(long timeoutMillis) throws InterruptedException {
+            return disconnected.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+    }
+}
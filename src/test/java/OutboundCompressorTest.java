@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OutboundCompressorTest {
+
+    private static String inflateLine(Inflater inflater, EncodedLine compressed) throws Exception {
+        String encoded = compressed.text().substring(OutboundCompressor.TEXT_PREFIX.length());
+        inflater.setInput(Base64.getDecoder().decode(encoded));
+        byte[] buffer = new byte[1 << 16];
+        int length = inflater.inflate(buffer);
+        return new String(buffer, 0, length - 1, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void compressedLinesShouldInflateInOrderFromOneStream() throws Exception {
+        OutboundCompressor compressor = new OutboundCompressor(0, new ServerMetrics());
+        Inflater inflater = new Inflater(true);
+        String first = "HISTORY:u2:" + "12:00~Alice~hello|".repeat(200);
+        String second = "HISTORY:u3:" + "12:01~Bob~again|".repeat(200);
+
+        String inflatedFirst = inflateLine(inflater, compressor.compress(EncodedLine.of(first), false));
+        String inflatedSecond = inflateLine(inflater, compressor.compress(EncodedLine.of(second), false));
+
+        assertEquals(true, first.equals(inflatedFirst) && second.equals(inflatedSecond));
+    }
+
+    @Test
+    void repetitiveHistoryShouldShrinkAndBeCounted() {
+        ServerMetrics metrics = new ServerMetrics();
+        OutboundCompressor compressor = new OutboundCompressor(0, metrics);
+        EncodedLine history = EncodedLine.of("HISTORY:u2:" + "[12:00:00] Alice~hello there|".repeat(1000));
+
+        EncodedLine compressed = compressor.compress(history, false);
+
+        boolean shrunk = compressed.length() * 10 < history.length()
+                && metrics.get("compression.inputBytes") == history.length()
+                && metrics.get("compression.outputBytes") == compressed.length();
+        assertEquals(true, shrunk);
+    }
+
+    @Test
+    void linesBelowThresholdShouldNotBeCompressed() {
+        ServerMetrics metrics = new ServerMetrics();
+        OutboundCompressor compressor = new OutboundCompressor(1024, metrics);
+        boolean skipped = !compressor.shouldCompress(EncodedLine.of("DM:u1:Alice:hi"), false)
+                && compressor.shouldCompress(EncodedLine.of("x".repeat(2048)), false);
+        assertEquals(true, skipped && metrics.get("compression.skipped") == 1);
+    }
+
+    @Test
+    void resetAfterDroppedChunkShouldKeepStreamDecodable() throws Exception {
+        OutboundCompressor compressor = new OutboundCompressor(0, new ServerMetrics());
+        Inflater inflater = new Inflater(true);
+        String delivered = "SEARCH_RESULTS:u2:" + "a~b~c|".repeat(100);
+        String dropped = "SEARCH_RESULTS:u2:" + "a~b~c|".repeat(150);
+        String afterReset = "SEARCH_RESULTS:u2:" + "a~b~c|".repeat(120);
+
+        String first = inflateLine(inflater, compressor.compress(EncodedLine.of(delivered), false));
+        compressor.compress(EncodedLine.of(dropped), false);
+        compressor.reset();
+        String second = inflateLine(inflater, compressor.compress(EncodedLine.of(afterReset), false));
+
+        assertEquals(true, delivered.equals(first) && afterReset.equals(second));
+    }
+}
@@ -0,0 +1,35 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OutboundQueueTest {
+
+    @Test
+    void offerShouldQueueLinesInOrder() {
+        OutboundQueue queue = new OutboundQueue(4);
+        queue.offer(EncodedLine.of("first"));
+        queue.offer(EncodedLine.of("second"));
+        boolean inOrder = "first".equals(queue.poll().text()) && "second".equals(queue.poll().text());
+        assertEquals(true, inOrder);
+    }
+
+    @Test
+    void offerShouldRejectAndCountLinesBeyondCapacity() {
+        OutboundQueue queue = new OutboundQueue(2);
+        queue.offer(EncodedLine.of("a"));
+        queue.offer(EncodedLine.of("b"));
+        boolean accepted = queue.offer(EncodedLine.of("c"));
+        boolean rejectedAndCounted = !accepted && queue.droppedCount() == 1 && queue.depth() == 2;
+        assertEquals(true, rejectedAndCounted);
+    }
+
+    @Test
+    void depthShouldReflectQueuedLines() {
+        OutboundQueue queue = new OutboundQueue(8);
+        queue.offer(EncodedLine.of("a"));
+        queue.offer(EncodedLine.of("b"));
+        queue.offer(EncodedLine.of("c"));
+        queue.poll();
+        assertEquals(2, queue.depth());
+    }
+}
@@ -0,0 +1,152 @@
+import Message.Message;
+import db.PersistenceQueue;
+import db.SchemaManager;
+import db.dao.DMDAO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PersistenceQueueTest {
+
+    @Test
+    void writesShouldBePersistedInSubmissionOrder() {
+        PersistenceQueue queue = new PersistenceQueue(16);
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            queue.submit(() -> written.add(value));
+        }
+        queue.flush();
+
+        boolean inOrder = written.size() == 100;
+        for (int i = 0; inOrder && i < written.size(); i++) {
+            inOrder = written.get(i) == i;
+        }
+        assertEquals(true, inOrder && queue.persisted() >= 100);
+        queue.shutdown();
+    }
+
+    @Test
+    void shutdownShouldDrainPendingWrites() throws Exception {
+        PersistenceQueue queue = new PersistenceQueue(64);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        queue.submit(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            queue.submit(() -> written.add(value));
+        }
+        started.await(5, TimeUnit.SECONDS);
+        int depthWhileBlocked = queue.depth();
+        release.countDown();
+        queue.shutdown();
+
+        assertEquals(true, depthWhileBlocked == 10 && written.size() == 10 && queue.depth() == 0);
+    }
+
+    @Test
+    void failedWriteShouldCompleteExceptionallyAndBeCounted() {
+        PersistenceQueue queue = new PersistenceQueue(4);
+        CompletableFuture<Void> result = queue.submit(() -> {
+            throw new IllegalStateException("disk full");
+        });
+        boolean failed = result.handle((ignored, error) -> error != null).join();
+        assertEquals(true, failed && queue.failed() == 1);
+        queue.shutdown();
+    }
+
+    @Test
+    void lagShouldReflectTimeSpentWaitingInTheQueue() throws Exception {
+        PersistenceQueue queue = new PersistenceQueue(4);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.submit(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<Void> waiting = queue.submit(() -> {
+        });
+        Thread.sleep(50);
+        long oldestPending = queue.oldestPendingMillis();
+        release.countDown();
+        waiting.join();
+
+        assertEquals(true, oldestPending >= 40 && queue.maxLagMillis() >= 40);
+        queue.shutdown();
+    }
+
+    @Test
+    void writesAfterShutdownShouldRunInline() {
+        PersistenceQueue queue = new PersistenceQueue(4);
+        queue.shutdown();
+        List<String> written = new ArrayList<>();
+        boolean done = queue.submit(() -> written.add("late")).isDone();
+        assertEquals(true, done && written.size() == 1);
+    }
+
+    @Test
+    void writesRacingShutdownShouldAllComplete() throws Exception {
+        PersistenceQueue queue = new PersistenceQueue(2);
+        List<CompletableFuture<Void>> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch ready = new CountDownLatch(4);
+        List<Thread> submitters = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread submitter = new Thread(() -> {
+                ready.countDown();
+                for (int i = 0; i < 200; i++) {
+                    results.add(queue.submit(() -> {
+                    }));
+                }
+            });
+            submitters.add(submitter);
+            submitter.start();
+        }
+        ready.await(5, TimeUnit.SECONDS);
+        queue.shutdown();
+        for (Thread submitter : submitters) {
+            submitter.join(5_000);
+        }
+
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertEquals(true, results.size() == 800 && queue.persisted() == 800 && queue.depth() == 0);
+    }
+
+    @Test
+    void rowsQueuedWithinTheWindowShouldCommitAsOneBatch() {
+        SchemaManager.initialize();
+        PersistenceQueue queue = new PersistenceQueue(1024, 64, 50);
+        String sender = "batchA" + System.nanoTime();
+        String receiver = "batchB" + System.nanoTime();
+        String conversation = sender + "_" + receiver;
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            results.add(queue.submit(DMDAO.row("row" + i + conversation, conversation, sender, receiver, "row " + i, 1_000L + i)));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+
+        List<Message> stored = new DMDAO().getMessages(sender, receiver);
+        boolean grouped = stored.size() == 40
+                && queue.batchedRows() == 40
+                && queue.batches() < 40
+                && queue.commitLatencyP99Micros() > 0;
+        assertEquals(true, grouped);
+        queue.shutdown();
+    }
+}
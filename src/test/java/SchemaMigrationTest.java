@@ -0,0 +1,103 @@
+import db.Database;
+import db.Migration;
+import db.SchemaManager;
+import db.dao.BlockedDAO;
+import db.dao.DMDAO;
+import db.dao.FriendDAO;
+import db.dao.ServerDAO;
+import db.dao.ServerMessageDAO;
+import db.dao.UserDAO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SchemaMigrationTest {
+
+    private static final List<Class<?>> DAOS = List.of(
+            UserDAO.class, FriendDAO.class, BlockedDAO.class,
+            DMDAO.class, ServerDAO.class, ServerMessageDAO.class);
+
+    private static final Set<String> INTENTIONAL_SCANS = Set.of("ServerDAO.LIST_SERVERS_SQL");
+
+    @BeforeAll
+    static void initializeSchema() {
+        SchemaManager.initialize();
+    }
+
+    @Test
+    void initializeShouldBringSchemaToLatestVersion() {
+        SchemaManager.initialize();
+        assertEquals(SchemaManager.latestVersion(), SchemaManager.currentVersion());
+    }
+
+    @Test
+    void failedMigrationShouldRollBackAndKeepPreviousVersion() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            List<Migration> migrations = List.of(
+                    new Migration(1, "table", List.of("CREATE TABLE t (id INTEGER)")),
+                    new Migration(2, "broken", List.of("CREATE INDEX idx_t ON t (id)", "NOT VALID SQL")));
+            boolean failed = false;
+            try {
+                SchemaManager.migrate(conn, migrations);
+            } catch (SQLException e) {
+                failed = true;
+            }
+            int version = SchemaManager.migrate(conn, migrations.subList(0, 1));
+            boolean indexRolledBack;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name = 'idx_t'");
+                 ResultSet rs = ps.executeQuery()) {
+                indexRolledBack = rs.next() && rs.getInt(1) == 0;
+            }
+            assertEquals(true, failed && version == 1 && indexRolledBack);
+        }
+    }
+
+    @Test
+    void daoQueriesShouldNotFallBackToFullScansOrTempSorts() throws Exception {
+        List<String> offenders = new ArrayList<>();
+        for (Class<?> dao : DAOS) {
+            for (Field field : dao.getFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) || !field.getName().endsWith("_SQL")) {
+                    continue;
+                }
+                String name = dao.getSimpleName() + "." + field.getName();
+                String sql = (String) field.get(null);
+                for (String detail : queryPlan(sql)) {
+                    boolean fullTextMatch = detail.contains("VIRTUAL TABLE INDEX") && detail.contains(":M");
+                    boolean fullScan = detail.startsWith("SCAN ") && !detail.contains("USING") && !fullTextMatch;
+                    boolean tempSort = detail.contains("USE TEMP B-TREE");
+                    if ((fullScan && !INTENTIONAL_SCANS.contains(name)) || tempSort) {
+                        offenders.add(name + " -> " + detail);
+                    }
+                }
+            }
+        }
+        assertEquals(List.of(), offenders);
+    }
+
+    private static List<String> queryPlan(String sql) {
+        return Database.getInstance().withReader(conn -> {
+            List<String> details = new ArrayList<>();
+            try (PreparedStatement ps = conn.connection().prepareStatement("EXPLAIN QUERY PLAN " + sql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    details.add(rs.getString("detail"));
+                }
+            }
+            return details;
+        });
+    }
+}
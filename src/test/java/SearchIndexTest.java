@@ -0,0 +1,59 @@
+import Message.Message;
+import db.model.MessagePage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SearchIndexTest {
+
+    private static List<Message> conversation(String word, int count) {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new Message("m" + i, "u1", "u2", word + " number " + i, Message.MessageType.DIRECT_MESSAGE, i));
+        }
+        return messages;
+    }
+
+    @Test
+    void firstSearchShouldBackfillOnceAndLaterMessagesShouldBeIndexed() {
+        ServerMetrics metrics = new ServerMetrics();
+        SearchIndex index = new SearchIndex(1 << 20, metrics);
+        AtomicInteger loads = new AtomicInteger();
+
+        MessagePage first = index.search("dm:a_b", "hello", 10, 0, () -> {
+            loads.incrementAndGet();
+            return conversation("hello", 3);
+        });
+        index.index("dm:a_b", new Message("live", "u2", "u1", "hello again", Message.MessageType.DIRECT_MESSAGE, 99));
+        MessagePage second = index.search("dm:a_b", "again", 10, 0, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+
+        assertEquals(true, first.messages().size() == 3 && second.messages().size() == 1);
+        assertEquals(1, loads.get());
+        assertEquals(2, metrics.get("search.index.hits"));
+    }
+
+    @Test
+    void messagesForUnsearchedScopesShouldNotBeIndexed() {
+        SearchIndex index = new SearchIndex(1 << 20, new ServerMetrics());
+        index.index("dm:cold", new Message("m", "u1", "u2", "ignored", Message.MessageType.DIRECT_MESSAGE, 1));
+        assertEquals(true, !index.isIndexed("dm:cold") && index.estimatedBytes() == 0);
+    }
+
+    @Test
+    void exceedingTheBudgetShouldEvictTheColdestScope() {
+        ServerMetrics metrics = new ServerMetrics();
+        SearchIndex index = new SearchIndex(40_000, metrics);
+        index.search("dm:old", "alpha", 10, 0, () -> conversation("alpha", 80));
+        index.search("dm:new", "beta", 10, 0, () -> conversation("beta", 80));
+
+        assertEquals(true, !index.isIndexed("dm:old") && index.isIndexed("dm:new"));
+        assertEquals(true, index.estimatedBytes() <= 40_000 && metrics.get("search.index.evictions") >= 1);
+    }
+}
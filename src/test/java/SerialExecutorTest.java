@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SerialExecutorTest {
+
+    @Test
+    void tasksShouldRunInSubmissionOrderOneAtATime() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            SerialExecutor mailbox = new SerialExecutor(pool);
+            List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(500);
+            for (int i = 0; i < 500; i++) {
+                int value = i;
+                mailbox.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    order.add(value);
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+
+            boolean inOrder = done.await(5, TimeUnit.SECONDS);
+            for (int i = 0; inOrder && i < order.size(); i++) {
+                inOrder = order.get(i) == i;
+            }
+            assertEquals(true, inOrder && maxRunning.get() == 1 && mailbox.pending() == 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void failingTaskShouldNotStopTheMailbox() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            SerialExecutor mailbox = new SerialExecutor(pool);
+            CountDownLatch done = new CountDownLatch(1);
+            mailbox.execute(() -> {
+                throw new IllegalStateException("boom");
+            });
+            mailbox.execute(done::countDown);
+            assertEquals(true, done.await(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shutDownPoolShouldNotFailTheCaller() {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        pool.shutdown();
+        SerialExecutor mailbox = new SerialExecutor(pool);
+        mailbox.execute(() -> {
+        });
+        assertEquals(1, mailbox.pending());
+    }
+
+    @Test
+    void roomActorAskShouldSeeEarlierMembershipChanges() {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            RoomActor room = new RoomActor(new LocalServer("s1", "Room", "owner"), pool);
+            room.tell(server -> server.addMember("guest"));
+            boolean member = room.ask(server -> server.isMember("guest")).join();
+            assertEquals(true, member);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
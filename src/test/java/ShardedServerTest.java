@@ -0,0 +1,149 @@
+import db.SchemaManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ShardedServerTest {
+    private static final int PORT = 8896;
+    private static final int SHARDS = 4;
+    private static ChatServer server;
+
+    @BeforeAll
+    static void startShardedServer() throws Exception {
+        SchemaManager.initialize();
+        server = new ChatServer(new ServerConfig().setPort(PORT).setShards(SHARDS));
+        Thread serverThread = new Thread(server::start);
+        serverThread.setDaemon(true);
+        serverThread.start();
+        Thread.sleep(500);
+    }
+
+    @AfterAll
+    static void stopShardedServer() {
+        server.shutdown();
+    }
+
+    @Test
+    void sameKeyShouldAlwaysLandOnTheSameShard() {
+        ShardSet shards = new ShardSet(SHARDS);
+        try {
+            boolean stable = shards.executorFor("room-1") == shards.executorFor("room-" + 1)
+                    && shards.indexFor("room-1") >= 0 && shards.indexFor("room-1") < SHARDS;
+            assertEquals(true, stable);
+        } finally {
+            shards.shutdown();
+        }
+    }
+
+    @Test
+    void directMessageShouldHopToTheReceiversShard() throws Exception {
+        ShardSet layout = new ShardSet(SHARDS);
+        String suffix = String.valueOf(System.nanoTime());
+        String aliceId = "shardA" + suffix;
+        String bobId = "shardB" + suffix;
+        for (int i = 0; layout.sameShard(aliceId, bobId); i++) {
+            bobId = "shardB" + suffix + "x" + i;
+        }
+        layout.shutdown();
+
+        Client alice = new Client(aliceId, "ShardAlice");
+        Client bob = new Client(bobId, "ShardBob");
+        try {
+            alice.send("FRIEND_REQUEST:" + bobId);
+            bob.waitForPrefix("FRIEND_REQUEST:" + aliceId);
+            bob.send("ACCEPT_FRIEND:" + aliceId);
+            alice.waitForPrefix("FRIEND_ADDED:" + bobId);
+
+            alice.send("SEND_DM:" + bobId + ":across shards");
+            String dm = bob.waitForPrefix("DM:" + aliceId + ":ShardAlice:");
+            String delivered = alice.waitForPrefix("DM_DELIVERED:" + bobId + ":ShardBob:");
+
+            boolean hopped = dm != null && dm.endsWith("across shards") && delivered != null
+                    && server.getMetrics().get("shards.dm.crossShard") >= 1;
+            assertEquals(true, hopped);
+        } finally {
+            alice.close();
+            bob.close();
+        }
+    }
+
+    @Test
+    void repliesProducedOnOtherThreadsShouldKeepTheRequestId() throws Exception {
+        String suffix = String.valueOf(System.nanoTime());
+        String aliceId = "tagA" + suffix;
+        String bobId = "tagB" + suffix;
+        Client alice = new Client(aliceId, "TagAlice");
+        Client bob = new Client(bobId, "TagBob");
+        try {
+            alice.send("FRIEND_REQUEST:" + bobId);
+            bob.waitForPrefix("FRIEND_REQUEST:" + aliceId);
+            bob.send("ACCEPT_FRIEND:" + aliceId);
+            alice.waitForPrefix("FRIEND_ADDED:" + bobId);
+
+            alice.send("@7:SEND_DM:" + bobId + ":tagged");
+            String delivered = alice.waitForPrefix("@7:DM_DELIVERED:" + bobId);
+            alice.send("@8:CREATE_SERVER:tagRoom" + suffix + ":Tagged");
+            String created = alice.waitForPrefix("@8:SERVER_CREATED:tagRoom" + suffix);
+
+            assertEquals(true, delivered != null && created != null);
+        } finally {
+            alice.close();
+            bob.close();
+        }
+    }
+
+    private static class Client {
+        private final Socket socket;
+        private final PrintWriter writer;
+        private final BlockingQueue<String> inbox = new LinkedBlockingQueue<>();
+
+        Client(String userId, String username) throws Exception {
+            socket = new Socket("localhost", PORT);
+            writer = new PrintWriter(socket.getOutputStream(), true);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            Thread readerThread = new Thread(() -> {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        inbox.offer(line);
+                    }
+                } catch (IOException ignored) {
+                }
+            });
+            readerThread.setDaemon(true);
+            readerThread.start();
+            send("REGISTER:" + userId + ":" + username + ":pw");
+            waitForPrefix("REGISTER_OK:" + userId);
+        }
+
+        void send(String command) {
+            writer.println(command);
+        }
+
+        String waitForPrefix(String prefix) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 3000;
+            while (System.currentTimeMillis() < deadline) {
+                String line = inbox.poll(200, TimeUnit.MILLISECONDS);
+                if (line != null && line.startsWith(prefix)) {
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import db.SchemaManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SlowConsumerPolicyTest {
+
+    private static ChatServer server;
+
+    @BeforeAll
+    static void createServer() {
+        SchemaManager.initialize();
+        server = new ChatServer(new ServerConfig().setPort(0));
+    }
+
+    @Test
+    void presenceAndSystemServerLinesShouldBeLowPriority() {
+        SlowConsumerPolicy policy = new SlowConsumerPolicy(4, SlowConsumerPolicy.Action.DROP_LOW_PRIORITY, new ServerMetrics());
+        ClientHandler handler = new ClientHandler(new RecordingConnection(), server);
+
+        boolean classified = !policy.admit(handler, OutboundMessage.of("STATUS", "u1", "Alice", "ONLINE"), 4)
+                && !policy.admit(handler, OutboundMessage.of("SERVER_MSG", "general", "SYSTEM", "SYSTEM", "[12:00:00] Alice joined"), 4)
+                && policy.admit(handler, OutboundMessage.of("SERVER_MSG", "general", "u1", "Alice", "[12:00:00] Alice: hi"), 4)
+                && policy.admit(handler, OutboundMessage.of("DM", "u1", "Alice", "[12:00:00] Alice: hi"), 4);
+        assertEquals(true, classified);
+    }
+
+    @Test
+    void dropLowPriorityShouldSkipPresenceAboveHighWaterMark() {
+        ServerMetrics metrics = new ServerMetrics();
+        SlowConsumerPolicy policy = new SlowConsumerPolicy(4, SlowConsumerPolicy.Action.DROP_LOW_PRIORITY, metrics);
+        ClientHandler handler = new ClientHandler(new RecordingConnection(), server);
+
+        boolean presenceAdmitted = policy.admit(handler, OutboundMessage.of("STATUS", "u1", "Alice", "ONLINE"), 4);
+        boolean dmAdmitted = policy.admit(handler, OutboundMessage.of("DM", "u1", "Alice", "hi"), 4);
+
+        boolean expected = !presenceAdmitted && dmAdmitted
+                && metrics.get("outbound.dropped.lowPriority") == 1
+                && metrics.get("outbound.highWater.crossed") == 1;
+        assertEquals(true, expected);
+    }
+
+    @Test
+    void notifyShouldSendOneOverflowNoticePerCrossing() {
+        ServerMetrics metrics = new ServerMetrics();
+        SlowConsumerPolicy policy = new SlowConsumerPolicy(4, SlowConsumerPolicy.Action.NOTIFY, metrics);
+        RecordingConnection connection = new RecordingConnection();
+        ClientHandler handler = new ClientHandler(connection, server);
+
+        policy.admit(handler, OutboundMessage.of("DM", "u1", "Alice", "one"), 5);
+        policy.admit(handler, OutboundMessage.of("DM", "u1", "Alice", "two"), 6);
+        policy.admit(handler, OutboundMessage.of("DM", "u1", "Alice", "three"), 0);
+        policy.admit(handler, OutboundMessage.of("DM", "u1", "Alice", "four"), 5);
+
+        long notices = connection.lines.stream().filter("ERROR:OUTBOUND_OVERFLOW"::equals).count();
+        boolean expected = notices == 2 && metrics.get("outbound.slowConsumer.notified") == 2;
+        assertEquals(true, expected);
+    }
+
+    @Test
+    void disconnectShouldCloseTheConnection() {
+        ServerMetrics metrics = new ServerMetrics();
+        SlowConsumerPolicy policy = new SlowConsumerPolicy(4, SlowConsumerPolicy.Action.DISCONNECT, metrics);
+        RecordingConnection connection = new RecordingConnection();
+        ClientHandler handler = new ClientHandler(connection, server);
+
+        boolean admitted = policy.admit(handler, OutboundMessage.of("DM", "u1", "Alice", "hi"), 4);
+
+        boolean expected = !admitted && connection.closed
+                && metrics.get("outbound.slowConsumer.disconnected") == 1;
+        assertEquals(true, expected);
+    }
+
+    static class RecordingConnection implements ClientConnection {
+        final List<String> lines = new CopyOnWriteArrayList<>();
+        boolean closed;
+
+        @Override
+        public boolean send(EncodedLine line) {
+            lines.add(line.text());
+            return true;
+        }
+
+        @Override
+        public int getOutboundQueueDepth() {
+            return lines.size();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+import db.SchemaManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UnixDomainSocketTest {
+
+    @BeforeAll
+    static void initializeSchema() {
+        SchemaManager.initialize();
+    }
+
+    private static Path startServer(ChatServer[] holder, int port, ServerConfig.Transport transport) throws Exception {
+        Path socketPath = Files.createTempDirectory("chat-uds").resolve("chat.sock");
+        ChatServer server = new ChatServer(new ServerConfig()
+                .setPort(port)
+                .setTransport(transport)
+                .setEventLoopThreads(1)
+                .setUdsPath(socketPath.toString()));
+        Thread serverThread = new Thread(server::start);
+        serverThread.setDaemon(true);
+        serverThread.start();
+        holder[0] = server;
+
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!Files.exists(socketPath) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        return socketPath;
+    }
+
+    private static String registerOverUnixSocket(Path socketPath, String userId) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            OutputStream out = ChannelStreams.output(channel);
+            BufferedReader in = new BufferedReader(new InputStreamReader(ChannelStreams.input(channel), StandardCharsets.UTF_8));
+            out.write(("REGISTER:" + userId + ":Unix:pw\n").getBytes(StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("REGISTER_")) {
+                    return line;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Test
+    void threadPerConnectionServerShouldAcceptUnixSocketClients() throws Exception {
+        ChatServer[] holder = new ChatServer[1];
+        Path socketPath = startServer(holder, 8893, ServerConfig.Transport.THREAD_PER_CONNECTION);
+        try {
+            String userId = "udsThread" + System.nanoTime();
+            String response = registerOverUnixSocket(socketPath, userId);
+            assertEquals(true, ("REGISTER_OK:" + userId + ":Unix").equals(response));
+        } finally {
+            holder[0].shutdown();
+        }
+    }
+
+    @Test
+    void nioServerShouldAcceptUnixSocketClients() throws Exception {
+        ChatServer[] holder = new ChatServer[1];
+        Path socketPath = startServer(holder, 8894, ServerConfig.Transport.NIO);
+        try {
+            String userId = "udsNio" + System.nanoTime();
+            String response = registerOverUnixSocket(socketPath, userId);
+            assertEquals(true, ("REGISTER_OK:" + userId + ":Unix").equals(response));
+        } finally {
+            holder[0].shutdown();
+        }
+    }
+
+    @Test
+    void shutdownShouldRemoveTheSocketFile() throws Exception {
+        ChatServer[] holder = new ChatServer[1];
+        Path socketPath = startServer(holder, 8895, ServerConfig.Transport.NIO);
+        boolean existedWhileRunning = Files.exists(socketPath);
+        holder[0].shutdown();
+        assertEquals(true, existedWhileRunning && !Files.exists(socketPath));
+    }
+}
@@ -136,4 +136,42 @@ public class UserTest {
         boolean containsCoreFields = repr.contains("u1") && repr.contains("alice") && repr.contains("alice@example.com");
         assertEquals(true, containsCoreFields);
     }
+
+    private static Message dm(int i) {
+        return new Message("m" + i, "friend-1", "u1", "message " + i, Message.MessageType.DIRECT_MESSAGE, i);
+    }
+
+    @Test
+    void directMessageCacheShouldKeepOnlyTheNewestMessagesPerConversation() {
+        User user = new User("u1", "alice", "alice@example.com", new HashSet<>(), new HashMap<>(), false, 3, 5);
+        for (int i = 0; i < 10; i++) {
+            user.addDirectMessage("friend-1", dm(i));
+        }
+        List<Message> messages = user.getDirectMessages("friend-1");
+        boolean keptNewest = messages.size() == 3 && "message 7".equals(messages.get(0).getContent());
+        assertEquals(true, keptNewest);
+    }
+
+    @Test
+    void directMessageCacheShouldEvictLeastRecentlyUsedConversation() {
+        User user = new User("u1", "alice", "alice@example.com", new HashSet<>(), new HashMap<>(), false, 10, 2);
+        user.addDirectMessage("a", dm(1));
+        user.addDirectMessage("b", dm(2));
+        user.getDirectMessages("a");
+        user.addDirectMessage("c", dm(3));
+        boolean evictedColdest = user.getDirectMessages("b").isEmpty()
+                && user.getDirectMessages("a").size() == 1
+                && user.cachedConversationCount() == 2;
+        assertEquals(true, evictedColdest);
+    }
+
+    @Test
+    void estimatedBytesShouldFollowEvictions() {
+        User user = new User("u1", "alice", "alice@example.com", new HashSet<>(), new HashMap<>(), false, 1, 1);
+        user.addDirectMessage("a", dm(1));
+        long one = user.estimatedDirectMessageBytes();
+        user.addDirectMessage("a", dm(2));
+        user.addDirectMessage("b", dm(3));
+        assertEquals(true, one > 0 && user.estimatedDirectMessageBytes() == dm(3).estimatedBytes());
+    }
 }